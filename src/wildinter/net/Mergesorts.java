@@ -1,8 +1,10 @@
 package wildinter.net;
 
+import wildinter.net.mergesort.BaseCase;
 import wildinter.net.mergesort.BottomUpMergesort;
 import wildinter.net.mergesort.Inputs;
 import wildinter.net.mergesort.MergesAndRuns;
+import wildinter.net.mergesort.Merger;
 import wildinter.net.mergesort.PeekSort;
 import wildinter.net.mergesort.PowerSort;
 import wildinter.net.mergesort.Sorter;
@@ -42,6 +44,11 @@ public class Mergesorts {
    		List<Sorter> algos = new ArrayList<>();
    		algos.add(new PowerSort(true, false, 24));
    		algos.add(new PeekSort(24, false));
+   		algos.add(new PowerSort(true, false, 24, Merger.NETWORK));
+   		algos.add(new PowerSort(true, false, 24, Merger.BRANCHLESS));
+   		algos.add(new PowerSort(true, false, 24, Merger.BIDIRECTIONAL));
+   		algos.add(new PowerSort(true, false, 24, Merger.BITONIC, BaseCase.NETWORK));
+   		algos.add(new TopDownMergesort(24, true, Merger.BRANCHLESS));
    		algos.add(new PowerSort(true, false, 2));
    		algos.add(new PeekSort(2, false));
    		algos.add(new TopDownMergesort(24, true));
@@ -145,7 +152,7 @@ public class Mergesorts {
    				int[] A = inputs.next(size, random, null);
    				for (int r = 0; r < reps; ++r) {
    					if (r != 0) A = inputs.next(size, random, A);
-   					MergesAndRuns.totalMergeCosts = 0;
+   					MergesAndRuns.totalMergeCosts.reset();
    					final long startNanos = System.nanoTime();
    					algo.sort(A, 0, size-1);
    					final long endNanos = System.nanoTime();
@@ -159,7 +166,7 @@ public class Mergesorts {
    						// Skip first iteration, often slower!
    						samples.addSample(msDiff);
    						if (MergesAndRuns.COUNT_MERGE_COSTS)
-   							out.write(algoName+","+msDiff+","+size+","+inputs+","+r +","+ MergesAndRuns.totalMergeCosts+"\n");
+   							out.write(algoName+","+msDiff+","+size+","+inputs+","+r +","+ MergesAndRuns.totalMergeCosts.sum()+"\n");
    						else
    							out.write(algoName+","+msDiff+","+size+","+inputs+","+r + "\n");
    						out.flush();
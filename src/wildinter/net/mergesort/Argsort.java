@@ -0,0 +1,195 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * Argsort: computes the permutation that stably sorts an int key column
+ * (perm such that keys[perm[0]] <= keys[perm[1]] <= ...), so that any
+ * number of payload columns can be reordered from one sort.
+ *
+ * {@link #argsort(int[], int[], int, int, int, SortWorkspace)} is an
+ * indirect powersort: runs are detected and merged on the index array,
+ * comparing through the key array, which is left untouched.
+ * {@link #argsortInPlace(int[], int[], int, int, int, SortWorkspace)}
+ * also sorts the keys, moving the indices along; this avoids the
+ * indirection and is faster when the original key order is not needed.
+ *
+ * Merges copy only the shorter run and take elements from the left run
+ * on ties, so both are stable: equal keys keep the order they have in perm.
+ */
+public class Argsort {
+
+	public static final int DEFAULT_MIN_RUN_LEN = 16;
+
+	private Argsort() {}
+
+	/** returns the permutation that stably sorts keys; keys is not modified */
+	public static int[] argsort(int[] keys) {
+		int[] perm = identity(keys.length);
+		argsort(keys, perm, 0, keys.length - 1, DEFAULT_MIN_RUN_LEN, new SortWorkspace());
+		return perm;
+	}
+
+	/** returns the permutation that stably sorts keys and sorts keys */
+	public static int[] argsortInPlace(int[] keys) {
+		int[] perm = identity(keys.length);
+		argsortInPlace(keys, perm, 0, keys.length - 1, DEFAULT_MIN_RUN_LEN, new SortWorkspace());
+		return perm;
+	}
+
+	/** returns [0, 1, ..., n-1] */
+	public static int[] identity(int n) {
+		int[] perm = new int[n];
+		for (int i = 0; i < n; ++i) perm[i] = i;
+		return perm;
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/**
+	 * Stably sorts perm[left..right] by keys[perm[i]] with powersort;
+	 * keys is only read.
+	 * Uses workspace.buffer (at most (right-left+1)/2 elements) for merging.
+	 */
+	public static void argsort(int[] keys, int[] perm, int left, int right, int minRunLen, SortWorkspace workspace) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
+		int top = 0;
+		int[] B = workspace.buffer(n >> 1);
+
+		int startA = left, endA = extendAndReverseRunRight(keys, perm, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(keys, perm, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(keys, perm, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(keys, perm, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(keys, perm, leftRunStart[l], leftRunEnd[l]+1, endA, B);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(keys, perm, leftRunStart[l], leftRunEnd[l]+1, right, B);
+		}
+	}
+
+	/**
+	 * Stably sorts keys[left..right] with powersort and applies the same
+	 * permutation to perm[left..right], see
+	 * {@link PowerSort#powersort(int[], int[][], int, int, int, SortWorkspace)}.
+	 */
+	public static void argsortInPlace(int[] keys, int[] perm, int left, int right, int minRunLen, SortWorkspace workspace) {
+		PowerSort.powersort(keys, new int[][] {perm}, left, right, minRunLen, workspace);
+	}
+
+	/**
+	 * Reorders column[left..right] by perm: afterwards, column[i] is the
+	 * former column[perm[i]]. perm[left..right] must be a permutation of
+	 * left..right (as computed by argsort for identity(n) on a subrange).
+	 * Uses workspace.buffer for the copy.
+	 */
+	public static void apply(int[] perm, int[] column, int left, int right, SortWorkspace workspace) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int[] copy = workspace.buffer(n);
+		System.arraycopy(column, left, copy, 0, n);
+		for (int i = left; i <= right; ++i) column[i] = copy[perm[i] - left];
+	}
+
+	/** Reorders column[left..right] by perm, see {@link #apply(int[], int[], int, int, SortWorkspace)} */
+	public static void apply(int[] perm, long[] column, int left, int right) {
+		long[] copy = Arrays.copyOfRange(column, left, right + 1);
+		for (int i = left; i <= right; ++i) column[i] = copy[perm[i] - left];
+	}
+
+	/** Reorders column[left..right] by perm, see {@link #apply(int[], int[], int, int, SortWorkspace)} */
+	public static void apply(int[] perm, double[] column, int left, int right) {
+		double[] copy = Arrays.copyOfRange(column, left, right + 1);
+		for (int i = left; i <= right; ++i) column[i] = copy[perm[i] - left];
+	}
+
+	/** Reorders column[left..right] by perm, see {@link #apply(int[], int[], int, int, SortWorkspace)} */
+	public static void apply(int[] perm, Object[] column, int left, int right) {
+		Object[] copy = Arrays.copyOfRange(column, left, right + 1);
+		for (int i = left; i <= right; ++i) column[i] = copy[perm[i] - left];
+	}
+
+	/**
+	 * Merges runs P[l..m-1] and P[m..r] (ordered by keys[P[i]]) stably
+	 * by copying the shorter run to B[0..] and merging back.
+	 */
+	public static void mergeRuns(int[] keys, int[] P, int l, int m, int r, int[] B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		if (n1 <= n2) {
+			System.arraycopy(P, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r)
+				P[o++] = keys[B[i1]] <= keys[P[i2]] ? B[i1++] : P[i2++];
+			if (i1 < n1) System.arraycopy(B, i1, P, o, n1 - i1);
+		} else {
+			System.arraycopy(P, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0)
+				P[o--] = keys[P[i1]] <= keys[B[i2]] ? B[i2--] : P[i1--];
+			if (i2 >= 0) System.arraycopy(B, 0, P, l, i2 + 1);
+		}
+	}
+
+	/**
+	 * Sorts P[left..right] by keys[P[i]] by straight-insertion sort, assuming
+	 * the leftmost nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(int[] keys, int[] P, int left, int right, int nPresorted) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final int v = P[i], kv = keys[v];
+			while (kv < keys[P[j]]) {
+				P[j+1] = P[j];
+				--j;
+				if (j < left) break;
+			}
+			P[j+1] = v;
+		}
+	}
+
+	/**
+	 * Finds the run (by keys[P[i]]) starting at P[i] and ending at most at
+	 * P[right], reversing it if it is strictly descending; returns its end.
+	 */
+	public static int extendAndReverseRunRight(final int[] keys, final int[] P, int i, final int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (keys[P[j]] > keys[P[++j]]) { // Strictly Descending
+			while (j < right && keys[P[j+1]] < keys[P[j]]) ++j;
+			MergesAndRuns.reverseRange(P, i, j);
+		} else { // Weakly Ascending
+			while (j < right && keys[P[j+1]] >= keys[P[j]]) ++j;
+		}
+		return j;
+	}
+}
@@ -0,0 +1,58 @@
+package wildinter.net.mergesort;
+
+/**
+ * Sorts small ranges for the mergesort variants: PowerSort extends short
+ * runs to minRunLen with it, the others sort subproblems below their cutoff.
+ */
+public interface BaseCase {
+	/**
+	 * Sorts A[left..right] (both endpoints inclusive), assuming the leftmost
+	 * nPresorted elements form a weakly increasing run.
+	 */
+	void sort(int[] A, int left, int right, int nPresorted);
+
+	/** Straight insertion sort, {@link Insertionsort#insertionsort(int[], int, int, int)} */
+	public static BaseCase INSERTIONSORT = new BaseCase() {
+		@Override
+		public void sort(final int[] A, final int left, final int right, final int nPresorted) {
+			Insertionsort.insertionsort(A, left, right, Math.max(nPresorted, 1));
+		}
+
+		@Override
+		public String toString() {
+			return "insertionsort";
+		}
+	};
+
+	/** Min/max insertion sort, {@link Insertionsort#insertionsortBranchless} */
+	public static BaseCase BRANCHLESS_INSERTIONSORT = new BaseCase() {
+		@Override
+		public void sort(final int[] A, final int left, final int right, final int nPresorted) {
+			Insertionsort.insertionsortBranchless(A, left, right, nPresorted);
+		}
+
+		@Override
+		public String toString() {
+			return "branchless-insertionsort";
+		}
+	};
+
+	/**
+	 * {@link SortingNetworks} for ranges of up to {@link SortingNetworks#MAX_SIZE}
+	 * elements, straight insertion sort for longer ones
+	 */
+	public static BaseCase NETWORK = new BaseCase() {
+		@Override
+		public void sort(final int[] A, final int left, final int right, final int nPresorted) {
+			if (right - left + 1 <= SortingNetworks.MAX_SIZE)
+				SortingNetworks.sort(A, left, right, nPresorted);
+			else
+				Insertionsort.insertionsort(A, left, right, Math.max(nPresorted, 1));
+		}
+
+		@Override
+		public String toString() {
+			return "network";
+		}
+	};
+}
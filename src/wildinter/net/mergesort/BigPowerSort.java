@@ -0,0 +1,242 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * Powersort for big arrays with more than 2^31 elements, stored as
+ * segments int[][]: element i is A[i >>> shift][i & (2^shift - 1)],
+ * where the segment size 2^shift is the length of A[0];
+ * all segments but the last must have that length
+ * (a single segment may have any length).
+ * Indices are longs, and node powers are computed exactly in 64 bits
+ * (see {@link #nodePower}), so the merge order has the same guarantees
+ * as for int[]. Merges copy the shorter run to buffer[0..] and merge
+ * back, so buffer needs (right-left+1)/2 elements.
+ */
+public class BigPowerSort {
+
+	/** segment size used by {@link #newBigArray} */
+	public static final int DEFAULT_SEGMENT_SHIFT = 27;
+
+	/** minRunLen used by {@link #sort} */
+	public static final int DEFAULT_MIN_RUN_LEN = 24;
+
+	private BigPowerSort() {}
+
+	/** returns a big array of the given length with segments of 2^segmentShift ints */
+	public static int[][] newBigArray(long length, int segmentShift) {
+		long segmentSize = 1L << segmentShift;
+		int nSegments = (int) ((length + segmentSize - 1) >>> segmentShift);
+		int[][] A = new int[nSegments][];
+		for (int s = 0; s < nSegments; ++s)
+			A[s] = new int[(int) Math.min(segmentSize, length - s * segmentSize)];
+		return A;
+	}
+
+	/** returns a big array of the given length with segments of 2^DEFAULT_SEGMENT_SHIFT ints */
+	public static int[][] newBigArray(long length) {
+		return newBigArray(length, DEFAULT_SEGMENT_SHIFT);
+	}
+
+	/** total number of elements in A */
+	public static long length(int[][] A) {
+		return A.length == 0 ? 0 : (long) (A.length - 1) * A[0].length + A[A.length - 1].length;
+	}
+
+	/** Sorts all elements of A into ascending order */
+	public static void sort(int[][] A) {
+		sort(A, 0, length(A) - 1);
+	}
+
+	/** Sorts A[left..right] into ascending order */
+	public static void sort(int[][] A, long left, long right) {
+		if (right <= left) return;
+		long bufferLength = Math.max(1, (right - left + 1) >> 1);
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN,
+				newBigArray(bufferLength, Math.min(shift(A), 64 - Long.numberOfLeadingZeros(bufferLength))));
+	}
+
+	private static int shift(int[][] A) {
+		int segmentSize = A[0].length;
+		if (A.length == 1) // any length; use the next power of two
+			return 32 - Integer.numberOfLeadingZeros(Math.max(segmentSize - 1, 1));
+		if (Integer.bitCount(segmentSize) != 1)
+			throw new IllegalArgumentException("segment length must be a power of two: " + segmentSize);
+		return Integer.numberOfTrailingZeros(segmentSize);
+	}
+
+	private static final long NULL_INDEX = Long.MIN_VALUE;
+
+	/**
+	 * Sorts A[left..right] by powersort with 64-bit node powers,
+	 * extending runs to minRunLen.
+	 */
+	public static void powersort(int[][] A, long left, long right, int minRunLen, int[][] buffer) {
+		long n = right - left + 1;
+		if (n < 2) return;
+		final Segments a = new Segments(A), b = new Segments(buffer);
+		int lgnPlus2 = 64 - Long.numberOfLeadingZeros(n) + 1;
+		long[] leftRunStart = new long[lgnPlus2], leftRunEnd = new long[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		long startA = left, endA = extendAndReverseRunRight(a, startA, right);
+		// extend to minRunLen
+		long lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(a, startA, endA, lenA);
+		}
+		while (endA < right) {
+			long startB = endA + 1, endB = extendAndReverseRunRight(a, startB, right);
+			// extend to minRunLen
+			long lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(a, startB, endB, lenB);
+			}
+			int k = nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(a, leftRunStart[l], leftRunEnd[l]+1, endA, b);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(a, leftRunStart[l], leftRunEnd[l]+1, right, b);
+		}
+	}
+
+	/**
+	 * The power of the node between runs A[startA..startB-1] and
+	 * A[startB..endB] for sorting A[left..right]: the number of equal
+	 * leading bits in the binary fractions of middleA/n and middleB/n
+	 * (relative to left), plus one. Computed exactly for n up to 2^61
+	 * by long division bit by bit.
+	 */
+	static int nodePower(long left, long right, long startA, long startB, long endB) {
+		final long n = right - left + 1;
+		assert n <= (1L << 61);
+		long l = startA + startB - (left << 1); // 2*middleA, in [0, 2n)
+		long r = startB + endB + 1 - (left << 1); // 2*middleB, in [0, 2n)
+		// fractions are l / 2n and r / 2n; compare their binary digits
+		final long n2 = n << 1;
+		int k = 0;
+		while (true) {
+			l <<= 1; r <<= 1;
+			final boolean digitA = l >= n2, digitB = r >= n2;
+			++k;
+			if (digitA != digitB) return k;
+			if (digitA) { l -= n2; r -= n2; }
+		}
+	}
+
+	/** Access to the elements of a segmented array */
+	private static final class Segments {
+		final int[][] A;
+		final int shift, mask;
+		/** 2^shift, as long since a single segment may need shift = 31 */
+		final long segmentSize;
+
+		Segments(int[][] A) {
+			this.A = A;
+			this.shift = shift(A);
+			this.segmentSize = 1L << shift;
+			this.mask = (int) (segmentSize - 1);
+		}
+
+		int get(long i) { return A[(int) (i >>> shift)][(int) i & mask]; }
+
+		void set(long i, int v) { A[(int) (i >>> shift)][(int) i & mask] = v; }
+
+		/** copies this[from..from+length-1] to to[dest..] segment by segment */
+		void copyTo(long from, Segments to, long dest, long length) {
+			while (length > 0) {
+				int srcOffset = (int) from & mask, destOffset = (int) dest & to.mask;
+				int len = (int) Math.min(length, Math.min(segmentSize - srcOffset, to.segmentSize - destOffset));
+				System.arraycopy(A[(int) (from >>> shift)], srcOffset, to.A[(int) (dest >>> to.shift)], destOffset, len);
+				from += len; dest += len; length -= len;
+			}
+		}
+	}
+
+	/** Merges runs A[l..m-1] and A[m..r] by copying the shorter run to B[0..] */
+	private static void mergeRuns(Segments A, long l, long m, long r, Segments B) {
+		long n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		if (n1 <= n2) {
+			A.copyTo(l, B, 0, n1);
+			long i1 = 0, i2 = m, o = l;
+			int x = B.get(i1), y = A.get(i2);
+			while (true) {
+				if (x <= y) {
+					A.set(o++, x);
+					if (++i1 == n1) return;
+					x = B.get(i1);
+				} else {
+					A.set(o++, y);
+					if (++i2 > r) break;
+					y = A.get(i2);
+				}
+			}
+			B.copyTo(i1, A, o, n1 - i1);
+		} else {
+			A.copyTo(m, B, 0, n2);
+			long i1 = m-1, i2 = n2-1, o = r;
+			int x = A.get(i1), y = B.get(i2);
+			while (true) {
+				if (x <= y) {
+					A.set(o--, y);
+					if (--i2 < 0) return;
+					y = B.get(i2);
+				} else {
+					A.set(o--, x);
+					if (--i1 < l) break;
+					x = A.get(i1);
+				}
+			}
+			B.copyTo(0, A, l, i2 + 1);
+		}
+	}
+
+	private static void insertionsort(Segments A, long left, long right, long nPresorted) {
+		for (long i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			long j = i - 1;
+			final int v = A.get(i);
+			while (v < A.get(j)) {
+				A.set(j+1, A.get(j));
+				--j;
+				if (j < left) break;
+			}
+			A.set(j+1, v);
+		}
+	}
+
+	private static void reverseRange(Segments A, long lo, long hi) {
+		while (lo < hi) {
+			int t = A.get(lo); A.set(lo++, A.get(hi)); A.set(hi--, t);
+		}
+	}
+
+	private static long extendAndReverseRunRight(Segments A, long i, long right) {
+		assert i <= right;
+		long j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (A.get(j) > A.get(++j)) { // Strictly Descending
+			while (j < right && A.get(j+1) < A.get(j)) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && A.get(j+1) >= A.get(j)) ++j;
+		}
+		return j;
+	}
+}
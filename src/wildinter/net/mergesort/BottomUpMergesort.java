@@ -5,7 +5,6 @@ import java.util.Arrays;
 import java.util.Random;
 
 import static java.lang.Math.min;
-import static wildinter.net.mergesort.MergesAndRuns.mergeRuns;
 
 /**
  * Simple bottom-up mergesort implementation.
@@ -19,50 +18,138 @@ import static wildinter.net.mergesort.MergesAndRuns.mergeRuns;
 public class BottomUpMergesort implements Sorter {
 
 	public BottomUpMergesort(final int minRunLen, final boolean doSortedCheck) {
+		this(minRunLen, doSortedCheck, Merger.BITONIC);
+	}
+
+	public BottomUpMergesort(final int minRunLen, final boolean doSortedCheck, final Merger merger) {
+		this(minRunLen, doSortedCheck, merger, BaseCase.INSERTIONSORT);
+	}
+
+	/** Bottom-up mergesort that sorts the initial runs of minRunLen elements with baseCase */
+	public BottomUpMergesort(final int minRunLen, final boolean doSortedCheck, final Merger merger,
+	                         final BaseCase baseCase) {
+		this(minRunLen, doSortedCheck, merger, baseCase, false);
+	}
+
+	/** Bottom-up mergesort that merges by {@link #mergesortPingPong} */
+	public static BottomUpMergesort pingPong(final int minRunLen) {
+		return new BottomUpMergesort(minRunLen, false, null, BaseCase.INSERTIONSORT, true);
+	}
+
+	private BottomUpMergesort(final int minRunLen, final boolean doSortedCheck, final Merger merger,
+	                          final BaseCase baseCase, final boolean pingPong) {
 		this.myMinRunLen = minRunLen;
 		this.doSortedCheck = doSortedCheck;
+		this.merger = merger;
+		this.baseCase = baseCase;
+		this.pingPong = pingPong;
 	}
 
 	@Override
 	public void sort(final int[] A, final int left, final int right) {
-		minRunLen = myMinRunLen;
-		if(doSortedCheck)
-			mergesortCheckSorted(A, left, right);
+		sort(A, left, right, new SortWorkspace());
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+		if (pingPong)
+			mergesortPingPong(A, left, right, myMinRunLen, workspace);
+		else if(doSortedCheck)
+			mergesortCheckSorted(A, left, right, myMinRunLen, merger, baseCase, workspace);
 		else
-			mergesort(A, left, right);
+			mergesort(A, left, right, myMinRunLen, merger, baseCase, workspace);
 	}
 
 	private final int myMinRunLen;
 	private final boolean doSortedCheck;
+	private final Merger merger;
+	private final BaseCase baseCase;
+	private final boolean pingPong;
 
-	private static int minRunLen = 24;
+	/** minRunLen used by the static methods without that parameter */
+	public static final int DEFAULT_MIN_RUN_LEN = 24;
 
 	public static void mergesort(int[] A, int left, int right) {
+		mergesort(A, left, right, Merger.BITONIC);
+	}
+
+	public static void mergesort(int[] A, int left, int right, Merger merger) {
+		mergesort(A, left, right, DEFAULT_MIN_RUN_LEN, merger, new SortWorkspace());
+	}
+
+	public static void mergesort(int[] A, int left, int right, int minRunLen, Merger merger, SortWorkspace workspace) {
+		mergesort(A, left, right, minRunLen, merger, BaseCase.INSERTIONSORT, workspace);
+	}
+
+	public static void mergesort(int[] A, int left, int right, int minRunLen, Merger merger, BaseCase baseCase,
+	                             SortWorkspace workspace) {
 		int n = right - left + 1;
-		int[] B = new int[n];
+		int[] B = workspace.buffer(right + 1);
 		if (minRunLen != 1)
 			for (int len = minRunLen, i = left; i <= right; i += len)
-				Insertionsort.insertionsort(A, i, min(i + len-1, right));
+				baseCase.sort(A, i, min(i + len-1, right), 1);
 		for (int len = minRunLen; len < n; len *= 2)
 			for (int i = left; i <= right - len; i += len + len)
-				mergeRuns(A, i, i + len, min(i + len + len - 1, right), B);
+				merger.merge(A, i, i + len, min(i + len + len - 1, right), B);
 	}
 
 	public static void mergesortCheckSorted(int[] A, int left, int right) {
+		mergesortCheckSorted(A, left, right, Merger.BITONIC);
+	}
+
+	public static void mergesortCheckSorted(int[] A, int left, int right, Merger merger) {
+		mergesortCheckSorted(A, left, right, DEFAULT_MIN_RUN_LEN, merger, new SortWorkspace());
+	}
+
+	public static void mergesortCheckSorted(int[] A, int left, int right, int minRunLen, Merger merger, SortWorkspace workspace) {
+		mergesortCheckSorted(A, left, right, minRunLen, merger, BaseCase.INSERTIONSORT, workspace);
+	}
+
+	public static void mergesortCheckSorted(int[] A, int left, int right, int minRunLen, Merger merger, BaseCase baseCase,
+	                                        SortWorkspace workspace) {
 		int n = right - left + 1;
-		int[] B = new int[n];
+		int[] B = workspace.buffer(right + 1);
 		if (minRunLen != 1)
 			for (int len = minRunLen, i = left; i <= right; i += len)
-				Insertionsort.insertionsort(A, i, min(i + len-1, right));
+				baseCase.sort(A, i, min(i + len-1, right), 1);
 		for (int len = minRunLen; len < n; len *= 2)
 			for (int i = left; i <= right - len; i += len + len)
 				if (A[i+len-1] > A[i+len])
-					mergeRuns(A, i, i + len, min(i + len + len - 1, right), B);
+					merger.merge(A, i, i + len, min(i + len + len - 1, right), B);
+	}
+
+	/**
+	 * Bottom-up mergesort where the runs of each pass are merged from A into
+	 * the buffer or vice versa, alternating between passes, so that each pass
+	 * moves every element only once (instead of copying to the buffer and
+	 * merging back). If the result ends up in the buffer, it is copied back.
+	 */
+	public static void mergesortPingPong(int[] A, int left, int right, int minRunLen, SortWorkspace workspace) {
+		int n = right - left + 1;
+		int[] B = workspace.buffer(right + 1);
+		if (minRunLen != 1)
+			for (int len = minRunLen, i = left; i <= right; i += len)
+				Insertionsort.insertionsort(A, i, min(i + len-1, right));
+		int[] src = A, dst = B;
+		for (int len = minRunLen; len < n; len *= 2) {
+			int i = left;
+			for (; i <= right - len; i += len + len) {
+				int r = min(i + len + len - 1, right);
+				if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(r-i+1);
+				MergesAndRuns.mergeRunsForward(src, src, i, i + len, r, dst);
+			}
+			// lone last run
+			if (i <= right) System.arraycopy(src, i, dst, i, right - i + 1);
+			int[] tmp = src; src = dst; dst = tmp;
+		}
+		if (src != A) System.arraycopy(src, left, A, left, n);
 	}
 
 	@Override
 	public String toString() {
-		return getClass().getSimpleName() + "+minRunLen=" + myMinRunLen + "+checkSorted="+doSortedCheck;
+		return getClass().getSimpleName() + "+minRunLen=" + myMinRunLen + "+checkSorted="+doSortedCheck
+				+ (pingPong ? "+pingpong" : merger == Merger.BITONIC ? "" : "+merger=" + merger)
+				+ (baseCase == BaseCase.INSERTIONSORT ? "" : "+base=" + baseCase);
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,237 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * Powersort and peeksort for byte[], together with the merging and
+ * run-detection kernels of {@link MergesAndRuns} and {@link Insertionsort}
+ * specialized to byte.
+ *
+ * {@link #sort} uses counting sort instead for more than
+ * COUNTING_SORT_THRESHOLD elements (same threshold as the JDK).
+ *
+ * All methods sort A[left..right] (both endpoints inclusive) and, like
+ * the int versions, use buffer[left..right] as temporary storage;
+ * buffer.length must be at least right+1.
+ */
+public class ByteMergesorts {
+
+	/** minRunLen used by {@link #sort} */
+	public static final int DEFAULT_MIN_RUN_LEN = 24;
+
+	/** for more elements, {@link #sort} uses counting sort */
+	public static final int COUNTING_SORT_THRESHOLD = 29;
+
+	private static final int NUM_VALUES = 1 << 8;
+
+	private ByteMergesorts() {}
+
+	/** Sorts A into ascending order */
+	public static void sort(byte[] A) {
+		sort(A, 0, A.length - 1);
+	}
+
+	/** Sorts A[left..right] into ascending order */
+	public static void sort(byte[] A, int left, int right) {
+		if (right <= left) return;
+		if (right - left + 1 > COUNTING_SORT_THRESHOLD)
+			countingSort(A, left, right);
+		else
+			powersort(A, left, right, DEFAULT_MIN_RUN_LEN, new byte[right + 1]);
+	}
+
+	/**
+	 * Sorts A[left..right] by powersort with MSB node powers,
+	 * extending runs to minRunLen.
+	 */
+	public static void powersort(byte[] A, int left, int right, int minRunLen, byte[] buffer) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, buffer);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, buffer);
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] by peeksort, sorting subproblems of at most
+	 * insertionSortThreshold elements by insertion sort.
+	 */
+	public static void peeksort(byte[] A, int left, int right, int insertionSortThreshold, byte[] buffer) {
+		if (right <= left) return;
+		peeksort(A, left, right, left, right, buffer, insertionSortThreshold);
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs.
+	 */
+	private static void peeksort(byte[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                             byte[] B, int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			insertionsort(A, left, right, leftRunEnd - left + 1);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksort(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, B, insertionSortThreshold);
+			mergeRuns(A, left, leftRunEnd+1, right, B);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksort(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B, insertionSortThreshold);
+			mergeRuns(A, left, rightRunStart, right, B);
+		} else {
+			// find middle run
+			final int i, j;
+			if (A[mid] <= A[mid+1]) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksort(A, left, i-1, leftRunEnd, i-1, B, insertionSortThreshold);
+				peeksort(A, i, right, j, rightRunStart, B, insertionSortThreshold);
+				mergeRuns(A, left, i, right, B);
+			} else {
+				// |XX   xxx|x      X|
+				peeksort(A, left, j, leftRunEnd, i, B, insertionSortThreshold);
+				peeksort(A, j+1, right, j+1, rightRunStart, B, insertionSortThreshold);
+				mergeRuns(A, left, j+1, right, B);
+			}
+		}
+	}
+
+	/** Sorts A[left..right] by counting the occurrences of each value */
+	public static void countingSort(byte[] A, int left, int right) {
+		final int[] count = new int[NUM_VALUES];
+		for (int i = left; i <= right; ++i) ++count[A[i] - Byte.MIN_VALUE];
+		for (int i = NUM_VALUES, k = right + 1; k > left; ) {
+			while (count[--i] == 0);
+			final byte value = (byte) (i + Byte.MIN_VALUE);
+			int s = count[i];
+			do { A[--k] = value; } while (--s > 0);
+		}
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r]
+	 * with Sedgewick's bitonic merge, see {@link MergesAndRuns#mergeRuns}.
+	 * B.length must be at least r+1.
+	 */
+	public static void mergeRuns(byte[] A, int l, int m, int r, byte[] B) {
+		--m;// mismatch in convention with Sedgewick
+		int i, j;
+		assert B.length >= r+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(r-l+1);
+		for (i = m+1; i > l; --i) B[i-1] = A[i-1];
+		for (j = m; j < r; ++j) B[r+m-j] = A[j+1];
+		for (int k = l; k <= r; ++k)
+			A[k] = B[j] < B[i] ? B[j--] : B[i++];
+	}
+
+	/**
+	 * Sorts A[left..right] by straight-insertion sort, assuming the leftmost
+	 * nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(byte[] A, int left, int right, int nPresorted) {
+		assert right - left + 1 >= nPresorted;
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final byte v = A[i];
+			while (v < A[j]) {
+				A[j+1] = A[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v;
+		}
+	}
+
+	/** Reverses A[lo..hi] */
+	public static void reverseRange(byte[] A, int lo, int hi) {
+		while (lo < hi) {
+			byte t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+
+	public static int extendWeaklyIncreasingRunLeft(final byte[] A, int i, final int left) {
+		while (i > left && A[i-1] <= A[i]) --i;
+		return i;
+	}
+
+	public static int extendWeaklyIncreasingRunRight(final byte[] A, int i, final int right) {
+		while (i < right && A[i+1] >= A[i]) ++i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunLeft(final byte[] A, int i, final int left) {
+		while (i > left && A[i-1] > A[i]) --i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunRight(final byte[] A, int i, final int right) {
+		while (i < right && A[i+1] < A[i]) ++i;
+		return i;
+	}
+
+	/**
+	 * Finds the run starting at A[i] and ending at most at A[right],
+	 * reversing it if it is strictly descending; returns the end of the run.
+	 */
+	public static int extendAndReverseRunRight(final byte[] A, int i, final int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (A[j] > A[++j]) { // Strictly Descending
+			while (j < right && A[j+1] < A[j]) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && A[j+1] >= A[j]) ++j;
+		}
+		return j;
+	}
+}
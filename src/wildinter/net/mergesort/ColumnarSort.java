@@ -0,0 +1,232 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * Multi-key sort of a table stored column by column (ORDER BY a, b, c):
+ * rows are compared lexicographically by a list of key columns,
+ * each an int[] or long[] and ascending or descending,
+ * without materializing row objects.
+ *
+ * {@link #permutation} computes the stable sorting permutation of the row
+ * indices with an indirect powersort (as {@link Argsort#argsort}),
+ * detecting runs by the lexicographic row order; {@link #sort} also
+ * reorders the key columns, and further payload columns can be reordered
+ * with {@link Argsort#apply}.
+ * If the rows are already sorted by the first key column, only the
+ * groups of rows with equal first key are sorted (by the remaining keys,
+ * recursively), so a table that is sorted on a prefix of the keys is
+ * cheap to re-sort.
+ */
+public class ColumnarSort {
+
+	public static final int DEFAULT_MIN_RUN_LEN = 16;
+
+	private ColumnarSort() {}
+
+	/** A key column with its sort direction */
+	public static final class Key {
+		private final int[] ints;
+		private final long[] longs;
+		private final boolean descending;
+
+		private Key(int[] ints, long[] longs, boolean descending) {
+			this.ints = ints;
+			this.longs = longs;
+			this.descending = descending;
+		}
+
+		/** number of rows */
+		public int length() {
+			return ints != null ? ints.length : longs.length;
+		}
+
+		/** compares rows a and b by this column */
+		int compare(int a, int b) {
+			int c = ints != null ? Integer.compare(ints[a], ints[b]) : Long.compare(longs[a], longs[b]);
+			return descending ? -c : c;
+		}
+
+		/** reorders this column by perm, see {@link Argsort#apply} */
+		void apply(int[] perm, int left, int right, SortWorkspace workspace) {
+			if (ints != null) Argsort.apply(perm, ints, left, right, workspace);
+			else Argsort.apply(perm, longs, left, right);
+		}
+
+		@Override
+		public String toString() {
+			return (ints != null ? "int" : "long") + (descending ? " desc" : " asc");
+		}
+	}
+
+	public static Key ascending(int[] column) { return new Key(column, null, false); }
+
+	public static Key descending(int[] column) { return new Key(column, null, true); }
+
+	public static Key ascending(long[] column) { return new Key(null, column, false); }
+
+	public static Key descending(long[] column) { return new Key(null, column, true); }
+
+	/**
+	 * returns the permutation perm that sorts the rows stably by keys,
+	 * i.e., row perm[0] is the first row in sorted order;
+	 * the columns are not modified.
+	 */
+	public static int[] permutation(Key... keys) {
+		int[] perm = Argsort.identity(rows(keys));
+		permutation(perm, 0, perm.length - 1, DEFAULT_MIN_RUN_LEN, new SortWorkspace(), keys);
+		return perm;
+	}
+
+	/**
+	 * Sorts the rows stably by keys, reordering all key columns in place;
+	 * returns the permutation that was applied (for reordering payload
+	 * columns with {@link Argsort#apply}).
+	 */
+	public static int[] sort(Key... keys) {
+		SortWorkspace workspace = new SortWorkspace();
+		int[] perm = Argsort.identity(rows(keys));
+		int right = perm.length - 1;
+		permutation(perm, 0, right, DEFAULT_MIN_RUN_LEN, workspace, keys);
+		for (Key key : keys) key.apply(perm, 0, right, workspace);
+		return perm;
+	}
+
+	/**
+	 * Stably sorts the row indices perm[left..right] by keys,
+	 * using workspace.buffer (at most (right-left+1)/2 elements) for merging.
+	 */
+	public static void permutation(int[] perm, int left, int right, int minRunLen, SortWorkspace workspace, Key... keys) {
+		sortByKeysFrom(keys, 0, perm, left, right, minRunLen, workspace);
+	}
+
+	private static int rows(Key[] keys) {
+		if (keys.length == 0) throw new IllegalArgumentException("no key columns");
+		int n = keys[0].length();
+		for (Key key : keys)
+			if (key.length() != n) throw new IllegalArgumentException("key columns differ in length");
+		return n;
+	}
+
+	/**
+	 * Sorts P[left..right] by keys[k..]; if it is already sorted by keys[k],
+	 * sorts each group of equal keys[k] by keys[k+1..] instead.
+	 */
+	private static void sortByKeysFrom(Key[] keys, int k, int[] P, int left, int right, int minRunLen, SortWorkspace workspace) {
+		if (right <= left || k == keys.length) return;
+		final Key key = keys[k];
+		int i = left;
+		while (i < right && key.compare(P[i], P[i+1]) <= 0) ++i;
+		if (i < right) {
+			powersort(keys, k, P, left, right, minRunLen, workspace);
+			return;
+		}
+		for (int start = left; start <= right; ) {
+			int end = start;
+			while (end < right && key.compare(P[end], P[end+1]) == 0) ++end;
+			sortByKeysFrom(keys, k+1, P, start, end, minRunLen, workspace);
+			start = end + 1;
+		}
+	}
+
+	/** compares rows a and b lexicographically by keys[k..] */
+	private static int compare(Key[] keys, int k, int a, int b) {
+		for (; k < keys.length; ++k) {
+			int c = keys[k].compare(a, b);
+			if (c != 0) return c;
+		}
+		return 0;
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/** Indirect powersort of P[left..right] by keys[k..], as {@link Argsort#argsort} */
+	private static void powersort(Key[] keys, int k, int[] P, int left, int right, int minRunLen, SortWorkspace workspace) {
+		int n = right - left + 1;
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
+		int top = 0;
+		int[] B = workspace.buffer(n >> 1);
+
+		int startA = left, endA = extendAndReverseRunRight(keys, k, P, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(keys, k, P, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(keys, k, P, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(keys, k, P, startB, endB, lenB);
+			}
+			int power = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert power != top;
+			for (int l = top; l > power; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(keys, k, P, leftRunStart[l], leftRunEnd[l]+1, endA, B);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[power] = startA; leftRunEnd[power] = endA;
+			top = power;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(keys, k, P, leftRunStart[l], leftRunEnd[l]+1, right, B);
+		}
+	}
+
+	/** Merges runs P[l..m-1] and P[m..r] stably by copying the shorter run to B[0..] */
+	private static void mergeRuns(Key[] keys, int k, int[] P, int l, int m, int r, int[] B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		if (n1 <= n2) {
+			System.arraycopy(P, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r)
+				P[o++] = compare(keys, k, B[i1], P[i2]) <= 0 ? B[i1++] : P[i2++];
+			if (i1 < n1) System.arraycopy(B, i1, P, o, n1 - i1);
+		} else {
+			System.arraycopy(P, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0)
+				P[o--] = compare(keys, k, P[i1], B[i2]) <= 0 ? B[i2--] : P[i1--];
+			if (i2 >= 0) System.arraycopy(B, 0, P, l, i2 + 1);
+		}
+	}
+
+	private static void insertionsort(Key[] keys, int k, int[] P, int left, int right, int nPresorted) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final int v = P[i];
+			while (compare(keys, k, v, P[j]) < 0) {
+				P[j+1] = P[j];
+				--j;
+				if (j < left) break;
+			}
+			P[j+1] = v;
+		}
+	}
+
+	private static int extendAndReverseRunRight(Key[] keys, int k, int[] P, int i, int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (compare(keys, k, P[j], P[++j]) > 0) { // Strictly Descending
+			while (j < right && compare(keys, k, P[j+1], P[j]) < 0) ++j;
+			MergesAndRuns.reverseRange(P, i, j);
+		} else { // Weakly Ascending
+			while (j < right && compare(keys, k, P[j+1], P[j]) >= 0) ++j;
+		}
+		return j;
+	}
+}
@@ -0,0 +1,267 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * Powersort and peeksort for double[], together with the merging and
+ * run-detection kernels of {@link MergesAndRuns} and {@link Insertionsort}
+ * specialized to double.
+ *
+ * Like {@link java.util.Arrays#sort(double[])}, the floating-point methods
+ * order -0.0 before 0.0 and put all NaNs at the end: NaNs are moved to
+ * the end and -0.0 is replaced by 0.0 before sorting by {@code <},
+ * and the right number of zeros is turned back into -0.0 afterwards.
+ *
+ * All methods sort A[left..right] (both endpoints inclusive) and, like
+ * the int versions, use buffer[left..right] as temporary storage;
+ * buffer.length must be at least right+1.
+ */
+public class DoubleMergesorts {
+
+	/** minRunLen used by {@link #sort} */
+	public static final int DEFAULT_MIN_RUN_LEN = 24;
+
+	private DoubleMergesorts() {}
+
+	/** Sorts A into ascending order, with NaNs last and -0.0 before 0.0 */
+	public static void sort(double[] A) {
+		sort(A, 0, A.length - 1);
+	}
+
+	/** Sorts A[left..right] into ascending order, with NaNs last and -0.0 before 0.0 */
+	public static void sort(double[] A, int left, int right) {
+		if (right <= left) return;
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN, new double[right + 1]);
+	}
+
+	/**
+	 * Sorts A[left..right] by powersort with MSB node powers,
+	 * extending runs to minRunLen, with NaNs last and -0.0 before 0.0.
+	 */
+	public static void powersort(double[] A, int left, int right, int minRunLen, double[] buffer) {
+		int last = moveNaNsToEnd(A, left, right);
+		int negativeZeros = replaceNegativeZeros(A, left, last);
+		powersortRaw(A, left, last, minRunLen, buffer);
+		restoreNegativeZeros(A, left, last, negativeZeros);
+	}
+
+	/**
+	 * Sorts A[left..right] by peeksort, sorting subproblems of at most
+	 * insertionSortThreshold elements by insertion sort, with NaNs last and -0.0 before 0.0.
+	 */
+	public static void peeksort(double[] A, int left, int right, int insertionSortThreshold, double[] buffer) {
+		int last = moveNaNsToEnd(A, left, right);
+		if (last <= left) return;
+		int negativeZeros = replaceNegativeZeros(A, left, last);
+		peeksortRaw(A, left, last, left, last, buffer, insertionSortThreshold);
+		restoreNegativeZeros(A, left, last, negativeZeros);
+	}
+
+	private static void powersortRaw(double[] A, int left, int right, int minRunLen, double[] buffer) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, buffer);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, buffer);
+		}
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs.
+	 */
+	private static void peeksortRaw(double[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                               double[] B, int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			insertionsort(A, left, right, leftRunEnd - left + 1);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksortRaw(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, B, insertionSortThreshold);
+			mergeRuns(A, left, leftRunEnd+1, right, B);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksortRaw(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B, insertionSortThreshold);
+			mergeRuns(A, left, rightRunStart, right, B);
+		} else {
+			// find middle run
+			final int i, j;
+			if (A[mid] <= A[mid+1]) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksortRaw(A, left, i-1, leftRunEnd, i-1, B, insertionSortThreshold);
+				peeksortRaw(A, i, right, j, rightRunStart, B, insertionSortThreshold);
+				mergeRuns(A, left, i, right, B);
+			} else {
+				// |XX   xxx|x      X|
+				peeksortRaw(A, left, j, leftRunEnd, i, B, insertionSortThreshold);
+				peeksortRaw(A, j+1, right, j+1, rightRunStart, B, insertionSortThreshold);
+				mergeRuns(A, left, j+1, right, B);
+			}
+		}
+	}
+
+	/** Moves all NaNs in A[left..right] to the end; returns the index of the last non-NaN */
+	private static int moveNaNsToEnd(double[] A, int left, int right) {
+		int last = right;
+		for (int k = right; k >= left; --k) {
+			final double ak = A[k];
+			if (ak != ak) { // NaN
+				A[k] = A[last];
+				A[last--] = ak;
+			}
+		}
+		return last;
+	}
+
+	/** Replaces all -0.0 in A[left..right] by 0.0; returns how many there were */
+	private static int replaceNegativeZeros(double[] A, int left, int right) {
+		int negativeZeros = 0;
+		for (int k = left; k <= right; ++k) {
+			if (A[k] == 0 && Double.doubleToRawLongBits(A[k]) != 0) {
+				A[k] = 0;
+				++negativeZeros;
+			}
+		}
+		return negativeZeros;
+	}
+
+	/** Turns the first negativeZeros zeros in sorted A[left..right] into -0.0 */
+	private static void restoreNegativeZeros(double[] A, int left, int right, int negativeZeros) {
+		if (negativeZeros == 0) return;
+		// find the first zero
+		int lo = left, hi = right;
+		while (lo <= hi) {
+			int middle = (lo + hi) >>> 1;
+			if (A[middle] < 0) lo = middle + 1;
+			else hi = middle - 1;
+		}
+		while (--negativeZeros >= 0) A[++hi] = -0.0d;
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r]
+	 * with Sedgewick's bitonic merge, see {@link MergesAndRuns#mergeRuns}.
+	 * B.length must be at least r+1.
+	 */
+	public static void mergeRuns(double[] A, int l, int m, int r, double[] B) {
+		--m;// mismatch in convention with Sedgewick
+		int i, j;
+		assert B.length >= r+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(r-l+1);
+		for (i = m+1; i > l; --i) B[i-1] = A[i-1];
+		for (j = m; j < r; ++j) B[r+m-j] = A[j+1];
+		for (int k = l; k <= r; ++k)
+			A[k] = B[j] < B[i] ? B[j--] : B[i++];
+	}
+
+	/**
+	 * Sorts A[left..right] by straight-insertion sort, assuming the leftmost
+	 * nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(double[] A, int left, int right, int nPresorted) {
+		assert right - left + 1 >= nPresorted;
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final double v = A[i];
+			while (v < A[j]) {
+				A[j+1] = A[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v;
+		}
+	}
+
+	/** Reverses A[lo..hi] */
+	public static void reverseRange(double[] A, int lo, int hi) {
+		while (lo < hi) {
+			double t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+
+	public static int extendWeaklyIncreasingRunLeft(final double[] A, int i, final int left) {
+		while (i > left && A[i-1] <= A[i]) --i;
+		return i;
+	}
+
+	public static int extendWeaklyIncreasingRunRight(final double[] A, int i, final int right) {
+		while (i < right && A[i+1] >= A[i]) ++i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunLeft(final double[] A, int i, final int left) {
+		while (i > left && A[i-1] > A[i]) --i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunRight(final double[] A, int i, final int right) {
+		while (i < right && A[i+1] < A[i]) ++i;
+		return i;
+	}
+
+	/**
+	 * Finds the run starting at A[i] and ending at most at A[right],
+	 * reversing it if it is strictly descending; returns the end of the run.
+	 */
+	public static int extendAndReverseRunRight(final double[] A, int i, final int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (A[j] > A[++j]) { // Strictly Descending
+			while (j < right && A[j+1] < A[j]) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && A[j+1] >= A[j]) ++j;
+		}
+		return j;
+	}
+}
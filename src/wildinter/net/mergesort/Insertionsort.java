@@ -39,6 +39,97 @@ public class Insertionsort {
 	}
 
 
+	/**
+	 * Like {@link #insertionsort(int[], int, int, int)}, but without
+	 * data-dependent branches: the new element is carried through the whole
+	 * sorted prefix with min/max steps instead of stopping at its position.
+	 * This does i-left steps for the i-th element instead of the expected
+	 * half of that, but never mispredicts, which wins on small random inputs.
+	 */
+	public static void insertionsortBranchless(int[] A, int left, int right, int nPresorted) {
+		assert right >= left;
+		assert right - left + 1 >= nPresorted;
+		for (int i = left + Math.max(nPresorted, 1); i <= right; ++i) {
+			int v = A[i];
+			for (int j = left; j < i; ++j) {
+				final int a = A[j];
+				A[j] = Math.min(a, v);
+				v = Math.max(a, v);
+			}
+			A[i] = v;
+		}
+	}
+
+	/**
+	 * Sort A[left..right] by straight-insertion sort (both endpoints
+	 * inclusive), moving the payload columns P[c] along with A,
+	 * assuming the leftmost nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(int[] A, int[][] P, int left, int right, int nPresorted) {
+		insertionsort(A, P, MergesAndRuns.NO_LONG_COLUMNS, left, right, nPresorted);
+	}
+
+	/**
+	 * Like {@link #insertionsort(int[], int[][], int, int, int)},
+	 * moving the long payload columns Q[c] along, too
+	 */
+	public static void insertionsort(int[] A, int[][] P, long[][] Q, int left, int right, int nPresorted) {
+		assert right >= left;
+		assert right - left + 1 >= nPresorted;
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			final int v = A[i];
+			if (v >= A[i-1]) continue;
+			// find insertion point j, then shift keys and payloads by one
+			int j = i - 1;
+			while (j > left && v < A[j-1]) --j;
+			for (int k = i; k > j; --k) A[k] = A[k-1];
+			A[j] = v;
+			for (final int[] col : P) {
+				final int p = col[i];
+				for (int k = i; k > j; --k) col[k] = col[k-1];
+				col[j] = p;
+			}
+			for (final long[] col : Q) {
+				final long q = col[i];
+				for (int k = i; k > j; --k) col[k] = col[k-1];
+				col[j] = q;
+			}
+		}
+	}
+
+
+	/**
+	 * Sorts A[left..right] by c with straight-insertion sort, assuming the
+	 * leftmost nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(int[] A, int left, int right, int nPresorted, IntComparator c) {
+		final int mask = MergesAndRuns.xorOrderMask(c);
+		if (mask != MergesAndRuns.NO_XOR_ORDER) {
+			// compare the elements xor mask directly, with no comparator calls
+			for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+				int j = i - 1;
+				final int v = A[i], key = v ^ mask;
+				while (key < (A[j] ^ mask)) {
+					A[j+1] = A[j];
+					--j;
+					if (j < left) break;
+				}
+				A[j+1] = v;
+			}
+			return;
+		}
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final int v = A[i];
+			while (c.compare(v, A[j]) < 0) {
+				A[j+1] = A[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v;
+		}
+	}
+
 	/**
 	 * Sort A[left..right] by straight-insertion sort (both endpoints
 	 * inclusive), assuming the rightmost nPresorted elements form a weakly
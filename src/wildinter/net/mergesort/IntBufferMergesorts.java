@@ -0,0 +1,272 @@
+package wildinter.net.mergesort;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Powersort and peeksort for ints held in an {@link IntBuffer}, in particular
+ * views of direct (off-heap) or memory-mapped {@link ByteBuffer}s,
+ * so such data can be sorted without copying it to an int[] on the heap.
+ *
+ * {@link #sort(IntBuffer)} and {@link #sort(ByteBuffer)} sort the elements
+ * between position and limit. The other methods work on A[left..right]
+ * (both endpoints inclusive) with absolute indices, as get(int) and
+ * put(int, int), so right must be below the limit.
+ * Merges copy the shorter run to buffer[0..] and merge back, so buffer
+ * needs capacity (right-left+1)/2 (its position and limit are ignored);
+ * {@link #allocateBuffer} allocates it off-heap as well.
+ */
+public class IntBufferMergesorts {
+
+	/** minRunLen used by {@link #sort} */
+	public static final int DEFAULT_MIN_RUN_LEN = 24;
+
+	private IntBufferMergesorts() {}
+
+	/** Sorts the remaining ints of A (from position to limit-1) into ascending order */
+	public static void sort(IntBuffer A) {
+		IntBuffer remaining = A.slice();
+		sort(remaining, 0, remaining.limit() - 1);
+	}
+
+	/**
+	 * Sorts the ints stored in the remaining bytes of bytes (from position
+	 * to limit-1, in the byte order of bytes) into ascending order
+	 */
+	public static void sort(ByteBuffer bytes) {
+		sort(bytes.asIntBuffer());
+	}
+
+	/** Sorts A[left..right] into ascending order */
+	public static void sort(IntBuffer A, int left, int right) {
+		if (right <= left) return;
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN, allocateBuffer((right - left + 1) >> 1));
+	}
+
+	/** returns a direct buffer in native byte order for n ints */
+	public static IntBuffer allocateBuffer(int n) {
+		return ByteBuffer.allocateDirect(4 * n).order(ByteOrder.nativeOrder()).asIntBuffer();
+	}
+
+	/**
+	 * Sorts A[left..right] by powersort with MSB node powers,
+	 * extending runs to minRunLen.
+	 */
+	public static void powersort(IntBuffer A, int left, int right, int minRunLen, IntBuffer buffer) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		buffer = wholeBuffer(buffer);
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				merge(A, leftRunStart[l], leftRunEnd[l]+1, endA, buffer);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			merge(A, leftRunStart[l], leftRunEnd[l]+1, right, buffer);
+		}
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/**
+	 * Sorts A[left..right] by peeksort, sorting subproblems of at most
+	 * insertionSortThreshold elements by insertion sort.
+	 */
+	public static void peeksort(IntBuffer A, int left, int right, int insertionSortThreshold, IntBuffer buffer) {
+		if (right <= left) return;
+		peeksort(A, left, right, left, right, wholeBuffer(buffer), insertionSortThreshold);
+	}
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs.
+	 */
+	private static void peeksort(IntBuffer A, int left, int right, int leftRunEnd, int rightRunStart,
+	                             IntBuffer B, int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			insertionsort(A, left, right, leftRunEnd - left + 1);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksort(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, B, insertionSortThreshold);
+			merge(A, left, leftRunEnd+1, right, B);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksort(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B, insertionSortThreshold);
+			merge(A, left, rightRunStart, right, B);
+		} else {
+			// find middle run
+			final int i, j;
+			if (A.get(mid) <= A.get(mid+1)) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksort(A, left, i-1, leftRunEnd, i-1, B, insertionSortThreshold);
+				peeksort(A, i, right, j, rightRunStart, B, insertionSortThreshold);
+				merge(A, left, i, right, B);
+			} else {
+				// |XX   xxx|x      X|
+				peeksort(A, left, j, leftRunEnd, i, B, insertionSortThreshold);
+				peeksort(A, j+1, right, j+1, rightRunStart, B, insertionSortThreshold);
+				merge(A, left, j+1, right, B);
+			}
+		}
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] into A[l..r] by copying the shorter
+	 * run to B[0..] and merging back.
+	 * B.capacity() must be at least min(m-l, r-m+1).
+	 */
+	public static void mergeRuns(IntBuffer A, int l, int m, int r, IntBuffer B) {
+		merge(A, l, m, r, wholeBuffer(B));
+	}
+
+	/** {@link #mergeRuns} for a buffer B whose limit is its capacity */
+	private static void merge(IntBuffer A, int l, int m, int r, IntBuffer B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		if (n1 <= n2) {
+			copy(A, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r) {
+				int x = B.get(i1), y = A.get(i2);
+				if (x <= y) { A.put(o++, x); ++i1; }
+				else { A.put(o++, y); ++i2; }
+			}
+			if (i1 < n1) copy(B, i1, A, o, n1 - i1);
+		} else {
+			copy(A, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0) {
+				int x = A.get(i1), y = B.get(i2);
+				if (x <= y) { A.put(o--, y); --i2; }
+				else { A.put(o--, x); --i1; }
+			}
+			if (i2 >= 0) copy(B, 0, A, l, i2 + 1);
+		}
+	}
+
+	/**
+	 * A duplicate of the merge buffer B (sharing its contents and byte order)
+	 * with position 0 and limit at capacity, so all of it can be used
+	 */
+	private static IntBuffer wholeBuffer(IntBuffer B) {
+		IntBuffer whole = B.duplicate();
+		whole.clear();
+		return whole;
+	}
+
+	/** Copies from[fromIndex..fromIndex+length-1] to to[toIndex..] with a bulk put */
+	private static void copy(IntBuffer from, int fromIndex, IntBuffer to, int toIndex, int length) {
+		IntBuffer src = from.duplicate(), dst = to.duplicate();
+		src.limit(fromIndex + length);
+		src.position(fromIndex);
+		dst.position(toIndex);
+		dst.put(src);
+	}
+
+	/**
+	 * Sorts A[left..right] by straight-insertion sort, assuming the leftmost
+	 * nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(IntBuffer A, int left, int right, int nPresorted) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final int v = A.get(i);
+			while (v < A.get(j)) {
+				A.put(j+1, A.get(j));
+				--j;
+				if (j < left) break;
+			}
+			A.put(j+1, v);
+		}
+	}
+
+	/** Reverses A[lo..hi] */
+	public static void reverseRange(IntBuffer A, int lo, int hi) {
+		while (lo < hi) {
+			int t = A.get(lo); A.put(lo++, A.get(hi)); A.put(hi--, t);
+		}
+	}
+
+	public static int extendWeaklyIncreasingRunLeft(final IntBuffer A, int i, final int left) {
+		while (i > left && A.get(i-1) <= A.get(i)) --i;
+		return i;
+	}
+
+	public static int extendWeaklyIncreasingRunRight(final IntBuffer A, int i, final int right) {
+		while (i < right && A.get(i+1) >= A.get(i)) ++i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunLeft(final IntBuffer A, int i, final int left) {
+		while (i > left && A.get(i-1) > A.get(i)) --i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunRight(final IntBuffer A, int i, final int right) {
+		while (i < right && A.get(i+1) < A.get(i)) ++i;
+		return i;
+	}
+
+	/**
+	 * Finds the run starting at A[i] and ending at most at A[right],
+	 * reversing it if it is strictly descending; returns the end of the run.
+	 */
+	public static int extendAndReverseRunRight(final IntBuffer A, int i, final int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (A.get(j) > A.get(++j)) { // Strictly Descending
+			while (j < right && A.get(j+1) < A.get(j)) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && A.get(j+1) >= A.get(j)) ++j;
+		}
+		return j;
+	}
+}
@@ -0,0 +1,36 @@
+package wildinter.net.mergesort;
+
+/**
+ * A comparison function on longs, to sort long[] by a custom order
+ * without boxing.
+ *
+ * The sorting methods recognize the constants {@link #NATURAL},
+ * {@link #REVERSE}, {@link #UNSIGNED} and {@link #UNSIGNED_REVERSE}:
+ * each of these orders is the natural order after flipping some bits
+ * (see {@link LongMergesorts#xorOrderMask}), so they flip the bits,
+ * sort in natural order without calling compare, and flip the bits back;
+ * the comparator merge, insertion sort and run extension kernels likewise
+ * compare the elements xor mask. Other comparators are called through
+ * this interface at call sites shared by all sorts, so once a program
+ * uses more than two comparator classes, these calls are not inlined.
+ */
+@FunctionalInterface
+public interface LongComparator {
+
+	/** returns a negative number, zero, or a positive number if a < b, a == b, a > b */
+	int compare(long a, long b);
+
+	LongComparator NATURAL = Long::compare;
+	LongComparator REVERSE = (a, b) -> Long.compare(b, a);
+	LongComparator UNSIGNED = Long::compareUnsigned;
+	LongComparator UNSIGNED_REVERSE = (a, b) -> Long.compareUnsigned(b, a);
+
+	/** the reverse order (one of the constants if this is one) */
+	default LongComparator reversed() {
+		if (this == NATURAL) return REVERSE;
+		if (this == REVERSE) return NATURAL;
+		if (this == UNSIGNED) return UNSIGNED_REVERSE;
+		if (this == UNSIGNED_REVERSE) return UNSIGNED;
+		return (a, b) -> compare(b, a);
+	}
+}
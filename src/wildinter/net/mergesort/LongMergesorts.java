@@ -0,0 +1,630 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * Powersort and peeksort for long[], together with the merging and
+ * run-detection kernels of {@link MergesAndRuns} and {@link Insertionsort}
+ * specialized to long.
+ *
+ * All methods sort A[left..right] (both endpoints inclusive) and, like
+ * the int versions, use buffer[left..right] as temporary storage;
+ * buffer.length must be at least right+1.
+ */
+public class LongMergesorts {
+
+	/** minRunLen used by {@link #sort} */
+	public static final int DEFAULT_MIN_RUN_LEN = 24;
+
+	private LongMergesorts() {}
+
+	/** Sorts A into ascending order */
+	public static void sort(long[] A) {
+		sort(A, 0, A.length - 1);
+	}
+
+	/** Sorts A[left..right] into ascending order */
+	public static void sort(long[] A, int left, int right) {
+		if (right <= left) return;
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN, new long[right + 1]);
+	}
+
+	/** Sorts A by c */
+	public static void sort(long[] A, LongComparator c) {
+		sort(A, 0, A.length - 1, c);
+	}
+
+	/** Sorts A[left..right] by c */
+	public static void sort(long[] A, int left, int right, LongComparator c) {
+		if (right <= left) return;
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN, c, new long[right + 1]);
+	}
+
+	/**
+	 * Sorts A[left..right] by powersort with MSB node powers,
+	 * extending runs to minRunLen.
+	 */
+	public static void powersort(long[] A, int left, int right, int minRunLen, long[] buffer) {
+		powersortRaw(A, left, right, minRunLen, buffer);
+	}
+
+	/**
+	 * Sorts A[left..right] by peeksort, sorting subproblems of at most
+	 * insertionSortThreshold elements by insertion sort.
+	 */
+	public static void peeksort(long[] A, int left, int right, int insertionSortThreshold, long[] buffer) {
+		if (right <= left) return;
+		peeksortRaw(A, left, right, left, right, buffer, insertionSortThreshold);
+	}
+
+	/**
+	 * Sorts A[left..right] by c with powersort. For the constants of
+	 * {@link LongComparator}, this flips bits to map c to the natural order
+	 * (see {@link LongMergesorts#xorOrderMask}) and sorts without calling c;
+	 * otherwise, runs are merged stably with
+	 * {@link LongMergesorts#mergeRuns(long[], int, int, int, LongComparator, long[])}.
+	 */
+	public static void powersort(long[] A, int left, int right, int minRunLen, LongComparator c, long[] buffer) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		long mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			if (mask != 0) xorRange(A, left, right, mask);
+			powersortRaw(A, left, right, minRunLen, buffer);
+			if (mask != 0) xorRange(A, left, right, mask);
+			return;
+		}
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right, c);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, startA, endA, lenA, c);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right, c);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, startB, endB, lenB, c);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, c, buffer);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, c, buffer);
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] by c with peeksort, flipping bits for the
+	 * constants of {@link LongComparator} as
+	 * {@link LongMergesorts#powersort(long[], int, int, int, LongComparator, long[])}.
+	 */
+	public static void peeksort(long[] A, int left, int right, int insertionSortThreshold, LongComparator c, long[] buffer) {
+		if (right <= left) return;
+		long mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			if (mask != 0) xorRange(A, left, right, mask);
+			peeksortRaw(A, left, right, left, right, buffer, insertionSortThreshold);
+			if (mask != 0) xorRange(A, left, right, mask);
+			return;
+		}
+		peeksort(A, left, right, left, right, c, buffer, insertionSortThreshold);
+	}
+
+	/**
+	 * Sorts A[left..right] by c, where A[left..leftRunEnd] and
+	 * A[rightRunStart..right] are known to be runs.
+	 */
+	private static void peeksort(long[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                             LongComparator c, long[] B, int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			insertionsort(A, left, right, leftRunEnd - left + 1, c);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksort(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, c, B, insertionSortThreshold);
+			mergeRuns(A, left, leftRunEnd+1, right, c, B);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksort(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, c, B, insertionSortThreshold);
+			mergeRuns(A, left, rightRunStart, right, c, B);
+		} else {
+			// find middle run
+			final int i, j;
+			if (c.compare(A[mid], A[mid+1]) <= 0) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1, c);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1, c);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1, c);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1, c);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksort(A, left, i-1, leftRunEnd, i-1, c, B, insertionSortThreshold);
+				peeksort(A, i, right, j, rightRunStart, c, B, insertionSortThreshold);
+				mergeRuns(A, left, i, right, c, B);
+			} else {
+				// |XX   xxx|x      X|
+				peeksort(A, left, j, leftRunEnd, i, c, B, insertionSortThreshold);
+				peeksort(A, j+1, right, j+1, rightRunStart, c, B, insertionSortThreshold);
+				mergeRuns(A, left, j+1, right, c, B);
+			}
+		}
+	}
+
+	private static void powersortRaw(long[] A, int left, int right, int minRunLen, long[] buffer) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, buffer);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, buffer);
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] stably and applies the same permutation to the
+	 * payload P[left..right] (e.g., the original indices). Merges copy the
+	 * shorter run, so B and PB need at least (right-left+1)/2 elements.
+	 */
+	public static void powersort(long[] A, int[] P, int left, int right, int minRunLen, long[] B, int[] PB) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, P, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, P, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, P, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, P, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, P, leftRunStart[l], leftRunEnd[l]+1, endA, B, PB);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, P, leftRunStart[l], leftRunEnd[l]+1, right, B, PB);
+		}
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs.
+	 */
+	private static void peeksortRaw(long[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                               long[] B, int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			insertionsort(A, left, right, leftRunEnd - left + 1);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksortRaw(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, B, insertionSortThreshold);
+			mergeRuns(A, left, leftRunEnd+1, right, B);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksortRaw(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B, insertionSortThreshold);
+			mergeRuns(A, left, rightRunStart, right, B);
+		} else {
+			// find middle run
+			final int i, j;
+			if (A[mid] <= A[mid+1]) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksortRaw(A, left, i-1, leftRunEnd, i-1, B, insertionSortThreshold);
+				peeksortRaw(A, i, right, j, rightRunStart, B, insertionSortThreshold);
+				mergeRuns(A, left, i, right, B);
+			} else {
+				// |XX   xxx|x      X|
+				peeksortRaw(A, left, j, leftRunEnd, i, B, insertionSortThreshold);
+				peeksortRaw(A, j+1, right, j+1, rightRunStart, B, insertionSortThreshold);
+				mergeRuns(A, left, j+1, right, B);
+			}
+		}
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r]
+	 * with Sedgewick's bitonic merge, see {@link MergesAndRuns#mergeRuns}.
+	 * B.length must be at least r+1.
+	 */
+	public static void mergeRuns(long[] A, int l, int m, int r, long[] B) {
+		--m;// mismatch in convention with Sedgewick
+		int i, j;
+		assert B.length >= r+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(r-l+1);
+		for (i = m+1; i > l; --i) B[i-1] = A[i-1];
+		for (j = m; j < r; ++j) B[r+m-j] = A[j+1];
+		for (int k = l; k <= r; ++k)
+			A[k] = B[j] < B[i] ? B[j--] : B[i++];
+	}
+
+	/**
+	 * Sorts A[left..right] by straight-insertion sort, assuming the leftmost
+	 * nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(long[] A, int left, int right, int nPresorted) {
+		assert right - left + 1 >= nPresorted;
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final long v = A[i];
+			while (v < A[j]) {
+				A[j+1] = A[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v;
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] by c with straight-insertion sort, assuming the
+	 * leftmost nPresorted elements form a weakly increasing run
+	 */
+	public static void insertionsort(long[] A, int left, int right, int nPresorted, LongComparator c) {
+		final long mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			// compare the elements xor mask directly, with no comparator calls
+			for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+				int j = i - 1;
+				final long v = A[i], key = v ^ mask;
+				while (key < (A[j] ^ mask)) {
+					A[j+1] = A[j];
+					--j;
+					if (j < left) break;
+				}
+				A[j+1] = v;
+			}
+			return;
+		}
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final long v = A[i];
+			while (c.compare(v, A[j]) < 0) {
+				A[j+1] = A[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v;
+		}
+	}
+
+	/** Reverses A[lo..hi] */
+	public static void reverseRange(long[] A, int lo, int hi) {
+		while (lo < hi) {
+			long t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+
+	public static int extendWeaklyIncreasingRunLeft(final long[] A, int i, final int left) {
+		while (i > left && A[i-1] <= A[i]) --i;
+		return i;
+	}
+
+	public static int extendWeaklyIncreasingRunRight(final long[] A, int i, final int right) {
+		while (i < right && A[i+1] >= A[i]) ++i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunLeft(final long[] A, int i, final int left) {
+		while (i > left && A[i-1] > A[i]) --i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunRight(final long[] A, int i, final int right) {
+		while (i < right && A[i+1] < A[i]) ++i;
+		return i;
+	}
+
+	/**
+	 * Finds the run starting at A[i] and ending at most at A[right],
+	 * reversing it if it is strictly descending; returns the end of the run.
+	 */
+	public static int extendAndReverseRunRight(final long[] A, int i, final int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (A[j] > A[++j]) { // Strictly Descending
+			while (j < right && A[j+1] < A[j]) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && A[j+1] >= A[j]) ++j;
+		}
+		return j;
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] stably, moving the payload P[l..r]
+	 * along with the keys: the shorter run is copied to B[0..] (and PB[0..])
+	 * and merged back.
+	 * B and PB must have length at least min(m-l, r-m+1).
+	 */
+	public static void mergeRuns(long[] A, int[] P, int l, int m, int r, long[] B, int[] PB) {
+		int n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		if (n1 <= n2) {
+			System.arraycopy(A, l, B, 0, n1);
+			System.arraycopy(P, l, PB, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r) {
+				if (B[i1] <= A[i2]) { A[o] = B[i1]; P[o++] = PB[i1++]; }
+				else { A[o] = A[i2]; P[o++] = P[i2++]; }
+			}
+			if (i1 < n1) {
+				System.arraycopy(B, i1, A, o, n1 - i1);
+				System.arraycopy(PB, i1, P, o, n1 - i1);
+			}
+		} else {
+			System.arraycopy(A, m, B, 0, n2);
+			System.arraycopy(P, m, PB, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0) {
+				if (A[i1] <= B[i2]) { A[o] = B[i2]; P[o--] = PB[i2--]; }
+				else { A[o] = A[i1]; P[o--] = P[i1--]; }
+			}
+			if (i2 >= 0) {
+				System.arraycopy(B, 0, A, l, i2 + 1);
+				System.arraycopy(PB, 0, P, l, i2 + 1);
+			}
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] by straight-insertion sort, moving the payload
+	 * P along with A, assuming the leftmost nPresorted elements form a
+	 * weakly increasing run
+	 */
+	public static void insertionsort(long[] A, int[] P, int left, int right, int nPresorted) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final long v = A[i];
+			final int p = P[i];
+			while (v < A[j]) {
+				A[j+1] = A[j];
+				P[j+1] = P[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v;
+			P[j+1] = p;
+		}
+	}
+
+	/** Reverses A[lo..hi] and P[lo..hi] */
+	public static void reverseRange(long[] A, int[] P, int lo, int hi) {
+		reverseRange(A, lo, hi);
+		MergesAndRuns.reverseRange(P, lo, hi);
+	}
+
+	/**
+	 * Like {@link #extendAndReverseRunRight(long[], int, int)},
+	 * reversing the payload P along with A
+	 */
+	public static int extendAndReverseRunRight(final long[] A, final int[] P, int i, final int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (A[j] > A[++j]) { // Strictly Descending
+			while (j < right && A[j+1] < A[j]) ++j;
+			reverseRange(A, P, i, j);
+		} else { // Weakly Ascending
+			while (j < right && A[j+1] >= A[j]) ++j;
+		}
+		return j;
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] (sorted by c) stably into A[l..r]
+	 * by copying the shorter run to B[0..] and merging back.
+	 * B.length must be at least min(m-l, r-m+1).
+	 */
+	public static void mergeRuns(long[] A, int l, int m, int r, LongComparator c, long[] B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		long mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			mergeRunsXor(A, l, m, r, mask, B);
+			return;
+		}
+		if (n1 <= n2) {
+			System.arraycopy(A, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r)
+				A[o++] = c.compare(B[i1], A[i2]) <= 0 ? B[i1++] : A[i2++];
+			if (i1 < n1) System.arraycopy(B, i1, A, o, n1 - i1);
+		} else {
+			System.arraycopy(A, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0)
+				A[o--] = c.compare(A[i1], B[i2]) <= 0 ? B[i2--] : A[i1--];
+			if (i2 >= 0) System.arraycopy(B, 0, A, l, i2 + 1);
+		}
+	}
+
+	/**
+	 * {@link #mergeRuns(long[], int, int, int, LongComparator, long[])} for the constants
+	 * of {@link LongComparator}: compares the elements xor mask directly, with no
+	 * comparator call in the loop
+	 */
+	private static void mergeRunsXor(long[] A, int l, int m, int r, long mask, long[] B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (n1 <= n2) {
+			System.arraycopy(A, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r)
+				A[o++] = (B[i1] ^ mask) <= (A[i2] ^ mask) ? B[i1++] : A[i2++];
+			if (i1 < n1) System.arraycopy(B, i1, A, o, n1 - i1);
+		} else {
+			System.arraycopy(A, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0)
+				A[o--] = (A[i1] ^ mask) <= (B[i2] ^ mask) ? B[i2--] : A[i1--];
+			if (i2 >= 0) System.arraycopy(B, 0, A, l, i2 + 1);
+		}
+	}
+
+	public static int extendWeaklyIncreasingRunLeft(final long[] A, int i, final int left, final LongComparator c) {
+		while (i > left && c.compare(A[i-1], A[i]) <= 0) --i;
+		return i;
+	}
+
+	public static int extendWeaklyIncreasingRunRight(final long[] A, int i, final int right, final LongComparator c) {
+		while (i < right && c.compare(A[i+1], A[i]) >= 0) ++i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunLeft(final long[] A, int i, final int left, final LongComparator c) {
+		while (i > left && c.compare(A[i-1], A[i]) > 0) --i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunRight(final long[] A, int i, final int right, final LongComparator c) {
+		while (i < right && c.compare(A[i+1], A[i]) < 0) ++i;
+		return i;
+	}
+
+	/**
+	 * Finds the run (by c) starting at A[i] and ending at most at A[right],
+	 * reversing it if it is strictly descending; returns the end of the run.
+	 */
+	public static int extendAndReverseRunRight(final long[] A, int i, final int right, final LongComparator c) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		final long mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			// Find end of run by comparing the elements xor mask, no comparator calls
+			if ((A[j] ^ mask) > (A[++j] ^ mask)) { // Strictly Descending
+				while (j < right && (A[j+1] ^ mask) < (A[j] ^ mask)) ++j;
+				reverseRange(A, i, j);
+			} else { // Weakly Ascending
+				while (j < right && (A[j+1] ^ mask) >= (A[j] ^ mask)) ++j;
+			}
+			return j;
+		}
+		// Find end of run, and reverse range if descending
+		if (c.compare(A[j], A[++j]) > 0) { // Strictly Descending
+			while (j < right && c.compare(A[j+1], A[j]) < 0) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && c.compare(A[j+1], A[j]) >= 0) ++j;
+		}
+		return j;
+	}
+
+	/** Not a mask: c is not one of the orders recognized by {@link #xorOrderMask} */
+	public static final long NO_XOR_ORDER = 1;
+
+	/**
+	 * If c is one of the constants of {@link LongComparator}, returns the mask m such
+	 * that c orders a, b like the natural order orders a^m, b^m;
+	 * otherwise returns {@link #NO_XOR_ORDER}.
+	 */
+	public static long xorOrderMask(LongComparator c) {
+		if (c == LongComparator.NATURAL) return 0;
+		if (c == LongComparator.REVERSE) return -1;
+		if (c == LongComparator.UNSIGNED) return Long.MIN_VALUE;
+		if (c == LongComparator.UNSIGNED_REVERSE) return Long.MAX_VALUE;
+		return NO_XOR_ORDER;
+	}
+
+	/** A[i] ^= mask for left <= i <= right */
+	public static void xorRange(long[] A, int left, int right, long mask) {
+		for (int i = left; i <= right; ++i) A[i] ^= mask;
+	}
+}
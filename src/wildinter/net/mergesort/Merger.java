@@ -0,0 +1,223 @@
+package wildinter.net.mergesort;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A merge procedure for two adjacent runs that can be plugged into
+ * the mergesort variants.
+ */
+public interface Merger {
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r],
+	 * using B[l..r] as temporary storage.
+	 * B.length must be at least r+1.
+	 */
+	void merge(int[] A, int l, int m, int r, int[] B);
+
+	/**
+	 * The length of buffer B that {@link #merge(int[], int, int, int, int[])}
+	 * needs for these runs; by default r+1.
+	 */
+	default int bufferLength(int l, int m, int r) {
+		return r + 1;
+	}
+
+	/**
+	 * The largest buffer length any merge of runs within A[left..right] needs;
+	 * by default that of a balanced merge of everything.
+	 */
+	default int maxBufferLength(int left, int right) {
+		return bufferLength(left, left + ((right - left + 1) >> 1), right);
+	}
+
+	/**
+	 * Merges like {@link #merge(int[], int, int, int, int[])}, taking the
+	 * buffer from the workspace; the buffer is allocated lazily by the first
+	 * merge that needs it, with maxBufferLength (unless this merge needs more).
+	 */
+	default void merge(int[] A, int l, int m, int r, SortWorkspace workspace, int maxBufferLength) {
+		merge(A, l, m, r, workspace.buffer(bufferLength(l, m, r), maxBufferLength));
+	}
+
+	/** Sedgewick's bitonic merge, {@link MergesAndRuns#mergeRuns} */
+	public static Merger BITONIC = new Merger() {
+		@Override
+		public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+			MergesAndRuns.mergeRuns(A, l, m, r, B);
+		}
+
+		@Override
+		public String toString() {
+			return "bitonic";
+		}
+	};
+
+	/**
+	 * Picks a branch-free merge loop per merge when the runs are expected to
+	 * interleave, {@link MergesAndRuns#mergeBranchless}
+	 */
+	public static Merger BRANCHLESS = new Merger() {
+		@Override
+		public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+			MergesAndRuns.mergeBranchless(A, l, m, r, B);
+		}
+
+		@Override
+		public String toString() {
+			return "branchless";
+		}
+	};
+
+	/**
+	 * Merges from both ends at once, {@link MergesAndRuns#mergeRunsBidirectional}
+	 */
+	public static Merger BIDIRECTIONAL = new Merger() {
+		@Override
+		public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+			MergesAndRuns.mergeRunsBidirectional(A, l, m, r, B);
+		}
+
+		@Override
+		public String toString() {
+			return "bidirectional";
+		}
+	};
+
+	/**
+	 * Merges blocks with a bitonic merge network,
+	 * {@link MergesAndRuns#mergeRunsNetwork};
+	 * needs a buffer of m-l+{@link MergesAndRuns#NETWORK_WIDTH} elements.
+	 */
+	public static Merger NETWORK = new Merger() {
+		@Override
+		public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+			MergesAndRuns.mergeRunsNetwork(A, l, m, r, B);
+		}
+
+		@Override
+		public int bufferLength(final int l, final int m, final int r) {
+			return m - l + MergesAndRuns.NETWORK_WIDTH;
+		}
+
+		@Override
+		public String toString() {
+			return "network";
+		}
+	};
+
+	/**
+	 * Merges by copying only the shorter run,
+	 * {@link MergesAndRuns#mergeRunsCopyHalf};
+	 * needs a buffer of min(m-l, r-m+1) elements, so at most n/2.
+	 */
+	public static Merger COPY_HALF = new Merger() {
+		@Override
+		public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+			MergesAndRuns.mergeRunsCopyHalf(A, l, m, r, B);
+		}
+
+		@Override
+		public int bufferLength(final int l, final int m, final int r) {
+			return Math.min(m - l, r - m + 1);
+		}
+
+		@Override
+		public String toString() {
+			return "copyhalf";
+		}
+	};
+
+	/**
+	 * Merges in place with {@link MergesAndRuns#mergeRunsInPlace};
+	 * needs no buffer.
+	 */
+	public static Merger IN_PLACE = new Merger() {
+		@Override
+		public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+			MergesAndRuns.mergeRunsInPlace(A, l, m, r);
+		}
+
+		@Override
+		public int bufferLength(final int l, final int m, final int r) {
+			return 0;
+		}
+
+		@Override
+		public String toString() {
+			return "inplace";
+		}
+	};
+
+	/**
+	 * Merges like {@link #COPY_HALF} as long as the buffer needed for that
+	 * fits into maxBufferBytes, and like {@link #IN_PLACE} otherwise.
+	 */
+	static Merger withBufferBudget(final long maxBufferBytes) {
+		if (maxBufferBytes < 0) throw new IllegalArgumentException();
+		final int maxBufferLength = (int) Math.min(Integer.MAX_VALUE, maxBufferBytes / Integer.BYTES);
+		return new Merger() {
+			@Override
+			public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+				int len = Math.min(m - l, r - m + 1);
+				if (len <= maxBufferLength && len <= B.length)
+					MergesAndRuns.mergeRunsCopyHalf(A, l, m, r, B);
+				else
+					MergesAndRuns.mergeRunsInPlace(A, l, m, r);
+			}
+
+			@Override
+			public int bufferLength(final int l, final int m, final int r) {
+				int len = Math.min(m - l, r - m + 1);
+				return len <= maxBufferLength ? len : 0;
+			}
+
+			@Override
+			public int maxBufferLength(final int left, final int right) {
+				return Math.min((right - left + 1) >> 1, maxBufferLength);
+			}
+
+			@Override
+			public String toString() {
+				return "budget" + maxBufferBytes + "B";
+			}
+		};
+	}
+
+	/** Timsort's galloping merge, {@link MergesAndRuns#mergeRunsGalloping} */
+	public static Merger GALLOPING = new Merger() {
+		@Override
+		public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+			MergesAndRuns.mergeRunsGalloping(A, l, m, r, B);
+		}
+
+		@Override
+		public String toString() {
+			return "galloping";
+		}
+	};
+
+	/**
+	 * Merges with {@link MergesAndRuns#parallelMergeRuns} in the given pool,
+	 * using as many parts as the pool's parallelism allows, but parts of at
+	 * least minPartSize elements;
+	 * merges too small to be split are done by {@link MergesAndRuns#mergeRuns}.
+	 */
+	static Merger parallel(final ForkJoinPool pool, final int minPartSize) {
+		if (minPartSize < 1) throw new IllegalArgumentException();
+		return new Merger() {
+			@Override
+			public void merge(final int[] A, final int l, final int m, final int r, final int[] B) {
+				int nParts = Math.min(pool.getParallelism(), (r - l + 1) / minPartSize);
+				if (nParts < 2)
+					MergesAndRuns.mergeRuns(A, l, m, r, B);
+				else
+					MergesAndRuns.parallelMergeRuns(A, l, m, r, B, pool, nParts);
+			}
+
+			@Override
+			public String toString() {
+				return "parallel-p" + pool.getParallelism() + "-minPart" + minPartSize;
+			}
+		};
+	}
+}
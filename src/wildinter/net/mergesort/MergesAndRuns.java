@@ -1,6 +1,10 @@
 package wildinter.net.mergesort;
 
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Merging procedures and some related helpers
@@ -10,8 +14,12 @@ public class MergesAndRuns {
 
 	/** turns on the counting of merge costs */
 	public static final boolean COUNT_MERGE_COSTS = true;
-	/** total merge costs of all merge calls */
-	public static long totalMergeCosts = 0;
+	/** total merge costs of all merge calls (also of concurrent ones) */
+	public static final LongAdder totalMergeCosts = new LongAdder();
+
+	/** no payload columns, for the variants moving only one type of columns */
+	static final int[][] NO_INT_COLUMNS = new int[0][];
+	static final long[][] NO_LONG_COLUMNS = new long[0][];
 
 
 	/**
@@ -24,13 +32,88 @@ public class MergesAndRuns {
 		--m;// mismatch in convention with Sedgewick
 		int i, j;
 		assert B.length >= r+1;
-		if (COUNT_MERGE_COSTS) totalMergeCosts += (r-l+1);
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(r-l+1);
 		for (i = m+1; i > l; --i) B[i-1] = A[i-1];
 		for (j = m; j < r; ++j) B[r+m-j] = A[j+1];
 		for (int k = l; k <= r; ++k)
 			A[k] = B[j] < B[i] ? B[j--] : B[i++];
 	}
 
+	/**
+	 * {@link #mergeBranchless} pays off when the longer run is at most this
+	 * many times longer than the shorter one; beyond that, the branch in
+	 * {@link #mergeRuns} is predicted well enough to be faster.
+	 */
+	public static final int BRANCHLESS_MAX_IMBALANCE = 3;
+
+	/**
+	 * Merges like {@link #mergeRuns(int[], int, int, int, int[])} (same bitonic
+	 * buffer layout), but without a data-dependent branch in the merge loop:
+	 * the comparison result is turned into 0/1 and added to the indices,
+	 * so runs that interleave unpredictably cause no mispredictions.
+	 * B.length must be at least r+1.
+	 */
+	public static void mergeRunsBranchless(int[] A, int l, int m, int r, int[] B) {
+		--m;// mismatch in convention with Sedgewick
+		int i, j;
+		assert B.length >= r+1;
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(r-l+1);
+		for (i = m+1; i > l; --i) B[i-1] = A[i-1];
+		for (j = m; j < r; ++j) B[r+m-j] = A[j+1];
+		for (int k = l; k <= r; ++k) {
+			final int x = B[i], y = B[j];
+			final int takeJ = (int) (((long) y - x) >>> 63); // y < x
+			A[k] = Math.min(x, y);
+			j -= takeJ;
+			i += takeJ ^ 1;
+		}
+	}
+
+	/**
+	 * Merges like {@link #mergeRunsBranchless} (same bitonic buffer layout),
+	 * but fills A from both ends at once: the front takes the smaller of the
+	 * two smallest remaining elements, the back the larger of the two largest.
+	 * The two halves form independent dependency chains that out-of-order
+	 * cores overlap.  The back has no sentinels, so it runs for min(n1, n2)
+	 * steps only (which cannot exhaust a run); the front finishes the rest.
+	 * B.length must be at least r+1.
+	 */
+	public static void mergeRunsBidirectional(int[] A, int l, int m, int r, int[] B) {
+		assert B.length >= r+1;
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(r-l+1);
+		for (int k = l; k < m; ++k) B[k] = A[k];
+		for (int k = m; k <= r; ++k) B[r+m-k] = A[k];
+		int i = l, j = r, i2 = m-1, j2 = m, lo = l, hi = r;
+		for (int s = Math.min(Math.min(m-l, r-m+1), (r-l+1) >> 1); s > 0; --s) {
+			final int x = B[i], y = B[j];
+			final int takeJ = (int) (((long) y - x) >>> 63); // y < x
+			A[lo++] = Math.min(x, y);
+			j -= takeJ;
+			i += takeJ ^ 1;
+			final int x2 = B[i2], y2 = B[j2];
+			final int takeI2 = (int) (((long) y2 - x2) >>> 63); // x2 > y2
+			A[hi--] = Math.max(x2, y2);
+			i2 -= takeI2;
+			j2 += takeI2 ^ 1;
+		}
+		while (lo <= hi)
+			A[lo++] = B[j] < B[i] ? B[j--] : B[i++];
+	}
+
+	/**
+	 * Merges with {@link #mergeRunsBranchless} if the runs have similar lengths
+	 * (up to a factor of {@link #BRANCHLESS_MAX_IMBALANCE}) and are thus expected
+	 * to interleave a lot, and with {@link #mergeRuns} otherwise.
+	 * B.length must be at least r+1.
+	 */
+	public static void mergeBranchless(int[] A, int l, int m, int r, int[] B) {
+		final int n1 = m-l, n2 = r-m+1;
+		if (n1 <= BRANCHLESS_MAX_IMBALANCE * n2 && n2 <= BRANCHLESS_MAX_IMBALANCE * n1)
+			mergeRunsBranchless(A, l, m, r, B);
+		else
+			mergeRuns(A, l, m, r, B);
+	}
+
 	/**
 	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r]
 	 * by copying the shorter run into temporary storage B and
@@ -39,7 +122,7 @@ public class MergesAndRuns {
 	 */
 	public static void mergeRunsCopyHalf(int[] A, int l, int m, int r, int[] B) {
 		int n1 = m-l, n2 = r-m+1;
-		if (COUNT_MERGE_COSTS) totalMergeCosts += (n1+n2);
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(n1+n2);
 		assert B.length >= n1 || B.length >= n2;
 		if (n1 <= n2) {
 			System.arraycopy(A, l, B, 0, n1);
@@ -56,6 +139,709 @@ public class MergesAndRuns {
 		}
 	}
 
+	/** Block length of {@link #mergeRunsNetwork} */
+	public static final int NETWORK_WIDTH = 8;
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r] block-wise:
+	 * the NETWORK_WIDTH largest elements seen so far stay in local variables
+	 * and are merged with the next block of the run with the smaller head
+	 * by a bitonic merge network of branch-free min/max steps; the lower
+	 * half of the result is final.  The only data-dependent branch is the
+	 * choice of run, once per block; leftovers are merged one by one.
+	 * Not stable, which makes no difference for ints.
+	 * The left run is copied to B[NETWORK_WIDTH..];
+	 * B.length must be at least m-l+NETWORK_WIDTH.
+	 * Runs shorter than NETWORK_WIDTH are merged by {@link #mergeRunsCopyHalf}.
+	 */
+	public static void mergeRunsNetwork(int[] A, int l, int m, int r, int[] B) {
+		final int W = NETWORK_WIDTH, n1 = m-l, n2 = r-m+1;
+		if (n1 < W || n2 < W) {
+			mergeRunsCopyHalf(A, l, m, r, B);
+			return;
+		}
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(n1+n2);
+		assert B.length >= n1 + W;
+		System.arraycopy(A, l, B, W, n1);
+		final int e1 = W + n1;
+		int a0 = B[W], a1 = B[W+1], a2 = B[W+2], a3 = B[W+3],
+			a4 = B[W+4], a5 = B[W+5], a6 = B[W+6], a7 = B[W+7];
+		int b0, b1, b2, b3, b4, b5, b6, b7, t;
+		int i1 = 2*W, i2 = m, o = l;
+		while (i1 < e1 && i2 <= r) {
+			if (B[i1] <= A[i2]) {
+				if (i1 > e1 - W) break;
+				b0 = B[i1]; b1 = B[i1+1]; b2 = B[i1+2]; b3 = B[i1+3]; b4 = B[i1+4]; b5 = B[i1+5]; b6 = B[i1+6]; b7 = B[i1+7];
+				i1 += W;
+			} else {
+				if (i2 > r + 1 - W) break;
+				b0 = A[i2]; b1 = A[i2+1]; b2 = A[i2+2]; b3 = A[i2+3]; b4 = A[i2+4]; b5 = A[i2+5]; b6 = A[i2+6]; b7 = A[i2+7];
+				i2 += W;
+			}
+			t = Math.min(a0, b7); b7 = Math.max(a0, b7); a0 = t;
+			t = Math.min(a1, b6); b6 = Math.max(a1, b6); a1 = t;
+			t = Math.min(a2, b5); b5 = Math.max(a2, b5); a2 = t;
+			t = Math.min(a3, b4); b4 = Math.max(a3, b4); a3 = t;
+			t = Math.min(a4, b3); b3 = Math.max(a4, b3); a4 = t;
+			t = Math.min(a5, b2); b2 = Math.max(a5, b2); a5 = t;
+			t = Math.min(a6, b1); b1 = Math.max(a6, b1); a6 = t;
+			t = Math.min(a7, b0); b0 = Math.max(a7, b0); a7 = t;
+			t = Math.min(a0, a4); a4 = Math.max(a0, a4); a0 = t;
+			t = Math.min(a1, a5); a5 = Math.max(a1, a5); a1 = t;
+			t = Math.min(a2, a6); a6 = Math.max(a2, a6); a2 = t;
+			t = Math.min(a3, a7); a7 = Math.max(a3, a7); a3 = t;
+			t = Math.min(a0, a2); a2 = Math.max(a0, a2); a0 = t;
+			t = Math.min(a1, a3); a3 = Math.max(a1, a3); a1 = t;
+			t = Math.min(a4, a6); a6 = Math.max(a4, a6); a4 = t;
+			t = Math.min(a5, a7); a7 = Math.max(a5, a7); a5 = t;
+			t = Math.min(a0, a1); a1 = Math.max(a0, a1); a0 = t;
+			t = Math.min(a2, a3); a3 = Math.max(a2, a3); a2 = t;
+			t = Math.min(a4, a5); a5 = Math.max(a4, a5); a4 = t;
+			t = Math.min(a6, a7); a7 = Math.max(a6, a7); a6 = t;
+			t = Math.min(b7, b3); b3 = Math.max(b7, b3); b7 = t;
+			t = Math.min(b6, b2); b2 = Math.max(b6, b2); b6 = t;
+			t = Math.min(b5, b1); b1 = Math.max(b5, b1); b5 = t;
+			t = Math.min(b4, b0); b0 = Math.max(b4, b0); b4 = t;
+			t = Math.min(b7, b5); b5 = Math.max(b7, b5); b7 = t;
+			t = Math.min(b6, b4); b4 = Math.max(b6, b4); b6 = t;
+			t = Math.min(b3, b1); b1 = Math.max(b3, b1); b3 = t;
+			t = Math.min(b2, b0); b0 = Math.max(b2, b0); b2 = t;
+			t = Math.min(b7, b6); b6 = Math.max(b7, b6); b7 = t;
+			t = Math.min(b5, b4); b4 = Math.max(b5, b4); b5 = t;
+			t = Math.min(b3, b2); b2 = Math.max(b3, b2); b3 = t;
+			t = Math.min(b1, b0); b0 = Math.max(b1, b0); b1 = t;
+			A[o] = a0; A[o+1] = a1; A[o+2] = a2; A[o+3] = a3;
+			A[o+4] = a4; A[o+5] = a5; A[o+6] = a6; A[o+7] = a7;
+			o += W;
+			a0 = b7; a1 = b6; a2 = b5; a3 = b4; a4 = b3; a5 = b2; a6 = b1; a7 = b0;
+		}
+		// merge the kept block into the rest of the left run, right before it
+		B[0] = a0; B[1] = a1; B[2] = a2; B[3] = a3; B[4] = a4; B[5] = a5; B[6] = a6; B[7] = a7;
+		final int start = i1 - W;
+		int h = 0, k = start;
+		while (h < W && i1 < e1) B[k++] = B[h] <= B[i1] ? B[h++] : B[i1++];
+		while (h < W) B[k++] = B[h++];
+		// A[o..i2-1] has room for exactly B[start..e1-1]
+		i1 = start;
+		while (i1 < e1 && i2 <= r)
+			A[o++] = B[i1] <= A[i2] ? B[i1++] : A[i2++];
+		while (i1 < e1) A[o++] = B[i1++];
+	}
+
+	/**
+	 * When one run wins MIN_GALLOP times in a row, {@link #mergeRunsGalloping}
+	 * switches to galloping mode (initially; the threshold adapts as in Timsort).
+	 */
+	public static final int MIN_GALLOP = 7;
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r]
+	 * with Timsort's galloping merge.
+	 * The prefix of A[l..m-1] and the suffix of A[m..r] that are already
+	 * in place are found by galloping and skipped; the shorter of the
+	 * remaining parts is copied to B (at the same indices) and merged back.
+	 * During that merge, we switch to galloping whenever one run wins
+	 * often enough in a row, so that merging runs with long uninterleaved
+	 * stretches needs only logarithmically many comparisons per stretch.
+	 * The galloping threshold starts at MIN_GALLOP for each merge.
+	 * B.length must be at least r+1.
+	 */
+	public static void mergeRunsGalloping(int[] A, int l, int m, int r, int[] B) {
+		assert B.length >= r+1;
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(r-l+1);
+		int len1 = m - l, len2 = r - m + 1;
+		// Find where the first element of run2 goes in run1
+		int k = gallopRight(A[m], A, l, len1, 0);
+		l += k; len1 -= k;
+		if (len1 == 0) return;
+		// Find where the last element of run1 goes in run2
+		len2 = gallopLeft(A[m-1], A, m, len2, len2 - 1);
+		if (len2 == 0) return;
+		if (len1 <= len2)
+			gallopingMergeLo(A, l, len1, m, len2, B);
+		else
+			gallopingMergeHi(A, l, len1, m, len2, B);
+	}
+
+	/**
+	 * Like Timsort's mergeLo: merges A[base1..base1+len1-1] and
+	 * A[base2..base2+len2-1], where A[base1] > A[base2] and
+	 * A[base1+len1-1] is larger than all of the second run,
+	 * using B[base1..base1+len1-1] as temporary storage;
+	 * should be called only if len1 <= len2.
+	 */
+	private static void gallopingMergeLo(final int[] A, final int base1, int len1, final int base2, int len2, final int[] B) {
+		assert len1 > 0 && len2 > 0 && base1 + len1 == base2;
+		System.arraycopy(A, base1, B, base1, len1);
+		int cursor1 = base1; // Indexes into B
+		int cursor2 = base2; // Indexes into A
+		int dest = base1;    // Indexes into A
+
+		// Move first element of second run and deal with degenerate cases
+		A[dest++] = A[cursor2++];
+		if (--len2 == 0) {
+			System.arraycopy(B, cursor1, A, dest, len1);
+			return;
+		}
+		if (len1 == 1) {
+			System.arraycopy(A, cursor2, A, dest, len2);
+			A[dest + len2] = B[cursor1]; // Last elt of run 1 to end of merge
+			return;
+		}
+
+		int minGallop = MIN_GALLOP;
+	outer:
+		while (true) {
+			int count1 = 0; // Number of times in a row that first run won
+			int count2 = 0; // Number of times in a row that second run won
+
+			// Do the straightforward thing until (if ever) one run starts winning consistently.
+			do {
+				assert len1 > 1 && len2 > 0;
+				if (A[cursor2] < B[cursor1]) {
+					A[dest++] = A[cursor2++];
+					count2++;
+					count1 = 0;
+					if (--len2 == 0) break outer;
+				} else {
+					A[dest++] = B[cursor1++];
+					count1++;
+					count2 = 0;
+					if (--len1 == 1) break outer;
+				}
+			} while ((count1 | count2) < minGallop);
+
+			// Gallop until neither run appears to be winning consistently anymore.
+			do {
+				assert len1 > 1 && len2 > 0;
+				count1 = gallopRight(A[cursor2], B, cursor1, len1, 0);
+				if (count1 != 0) {
+					System.arraycopy(B, cursor1, A, dest, count1);
+					dest += count1;
+					cursor1 += count1;
+					len1 -= count1;
+					if (len1 <= 1) break outer; // len1 == 1 || len1 == 0
+				}
+				A[dest++] = A[cursor2++];
+				if (--len2 == 0) break outer;
+
+				count2 = gallopLeft(B[cursor1], A, cursor2, len2, 0);
+				if (count2 != 0) {
+					System.arraycopy(A, cursor2, A, dest, count2);
+					dest += count2;
+					cursor2 += count2;
+					len2 -= count2;
+					if (len2 == 0) break outer;
+				}
+				A[dest++] = B[cursor1++];
+				if (--len1 == 1) break outer;
+				minGallop--;
+			} while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+			if (minGallop < 0) minGallop = 0;
+			minGallop += 2;  // Penalize for leaving gallop mode
+		}
+
+		if (len1 == 1) {
+			assert len2 > 0;
+			System.arraycopy(A, cursor2, A, dest, len2);
+			A[dest + len2] = B[cursor1]; //  Last elt of run 1 to end of merge
+		} else {
+			assert len2 == 0;
+			assert len1 > 1;
+			System.arraycopy(B, cursor1, A, dest, len1);
+		}
+	}
+
+	/**
+	 * Like Timsort's mergeHi, the mirror image of {@link #gallopingMergeLo};
+	 * uses B[base2..base2+len2-1] as temporary storage and
+	 * should be called only if len1 >= len2.
+	 */
+	private static void gallopingMergeHi(final int[] A, final int base1, int len1, final int base2, int len2, final int[] B) {
+		assert len1 > 0 && len2 > 0 && base1 + len1 == base2;
+		System.arraycopy(A, base2, B, base2, len2);
+		int cursor1 = base1 + len1 - 1; // Indexes into A
+		int cursor2 = base2 + len2 - 1; // Indexes into B
+		int dest = base2 + len2 - 1;    // Indexes into A
+
+		// Move last element of first run and deal with degenerate cases
+		A[dest--] = A[cursor1--];
+		if (--len1 == 0) {
+			System.arraycopy(B, base2, A, dest - (len2 - 1), len2);
+			return;
+		}
+		if (len2 == 1) {
+			dest -= len1;
+			cursor1 -= len1;
+			System.arraycopy(A, cursor1 + 1, A, dest + 1, len1);
+			A[dest] = B[cursor2];
+			return;
+		}
+
+		int minGallop = MIN_GALLOP;
+	outer:
+		while (true) {
+			int count1 = 0; // Number of times in a row that first run won
+			int count2 = 0; // Number of times in a row that second run won
+
+			// Do the straightforward thing until (if ever) one run appears to win consistently.
+			do {
+				assert len1 > 0 && len2 > 1;
+				if (B[cursor2] < A[cursor1]) {
+					A[dest--] = A[cursor1--];
+					count1++;
+					count2 = 0;
+					if (--len1 == 0) break outer;
+				} else {
+					A[dest--] = B[cursor2--];
+					count2++;
+					count1 = 0;
+					if (--len2 == 1) break outer;
+				}
+			} while ((count1 | count2) < minGallop);
+
+			// Gallop until neither run appears to be winning consistently anymore.
+			do {
+				assert len1 > 0 && len2 > 1;
+				count1 = len1 - gallopRight(B[cursor2], A, base1, len1, len1 - 1);
+				if (count1 != 0) {
+					dest -= count1;
+					cursor1 -= count1;
+					len1 -= count1;
+					System.arraycopy(A, cursor1 + 1, A, dest + 1, count1);
+					if (len1 == 0) break outer;
+				}
+				A[dest--] = B[cursor2--];
+				if (--len2 == 1) break outer;
+
+				count2 = len2 - gallopLeft(A[cursor1], B, base2, len2, len2 - 1);
+				if (count2 != 0) {
+					dest -= count2;
+					cursor2 -= count2;
+					len2 -= count2;
+					System.arraycopy(B, cursor2 + 1, A, dest + 1, count2);
+					if (len2 <= 1) break outer; // len2 == 1 || len2 == 0
+				}
+				A[dest--] = A[cursor1--];
+				if (--len1 == 0) break outer;
+				minGallop--;
+			} while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+			if (minGallop < 0) minGallop = 0;
+			minGallop += 2;  // Penalize for leaving gallop mode
+		}
+
+		if (len2 == 1) {
+			assert len1 > 0;
+			dest -= len1;
+			cursor1 -= len1;
+			System.arraycopy(A, cursor1 + 1, A, dest + 1, len1);
+			A[dest] = B[cursor2];  // Move first elt of run2 to front of merge
+		} else {
+			assert len1 == 0;
+			assert len2 > 0;
+			System.arraycopy(B, base2, A, dest - (len2 - 1), len2);
+		}
+	}
+
+	/**
+	 * Returns the index k, 0 <= k <= len, such that key belongs at index base+k
+	 * of the sorted range A[base..base+len-1], before all elements equal to key;
+	 * (Timsort's gallopLeft).
+	 * The search starts at base+hint (0 <= hint < len) and gallops
+	 * (exponential search) from there.
+	 */
+	public static int gallopLeft(int key, int[] A, int base, int len, int hint) {
+		assert len > 0 && hint >= 0 && hint < len;
+		int lastOfs = 0;
+		int ofs = 1;
+		if (key > A[base + hint]) {
+			// Gallop right until A[base+hint+lastOfs] < key <= A[base+hint+ofs]
+			int maxOfs = len - hint;
+			while (ofs < maxOfs && key > A[base + hint + ofs]) {
+				lastOfs = ofs;
+				ofs = (ofs << 1) + 1;
+				if (ofs <= 0) ofs = maxOfs; // int overflow
+			}
+			if (ofs > maxOfs) ofs = maxOfs;
+			// Make offsets relative to base
+			lastOfs += hint;
+			ofs += hint;
+		} else { // key <= A[base + hint]
+			// Gallop left until A[base+hint-ofs] < key <= A[base+hint-lastOfs]
+			final int maxOfs = hint + 1;
+			while (ofs < maxOfs && key <= A[base + hint - ofs]) {
+				lastOfs = ofs;
+				ofs = (ofs << 1) + 1;
+				if (ofs <= 0) ofs = maxOfs; // int overflow
+			}
+			if (ofs > maxOfs) ofs = maxOfs;
+			// Make offsets relative to base
+			int tmp = lastOfs;
+			lastOfs = hint - ofs;
+			ofs = hint - tmp;
+		}
+		assert -1 <= lastOfs && lastOfs < ofs && ofs <= len;
+		// Binary search with invariant A[base+lastOfs-1] < key <= A[base+ofs]
+		lastOfs++;
+		while (lastOfs < ofs) {
+			int m = lastOfs + ((ofs - lastOfs) >>> 1);
+			if (key > A[base + m]) lastOfs = m + 1;
+			else ofs = m;
+		}
+		return ofs;
+	}
+
+	/**
+	 * Like {@link #gallopLeft}, except that key goes after all elements
+	 * equal to it (Timsort's gallopRight).
+	 */
+	public static int gallopRight(int key, int[] A, int base, int len, int hint) {
+		assert len > 0 && hint >= 0 && hint < len;
+		int ofs = 1;
+		int lastOfs = 0;
+		if (key < A[base + hint]) {
+			// Gallop left until A[base+hint-ofs] <= key < A[base+hint-lastOfs]
+			int maxOfs = hint + 1;
+			while (ofs < maxOfs && key < A[base + hint - ofs]) {
+				lastOfs = ofs;
+				ofs = (ofs << 1) + 1;
+				if (ofs <= 0) ofs = maxOfs; // int overflow
+			}
+			if (ofs > maxOfs) ofs = maxOfs;
+			// Make offsets relative to base
+			int tmp = lastOfs;
+			lastOfs = hint - ofs;
+			ofs = hint - tmp;
+		} else { // A[base+hint] <= key
+			// Gallop right until A[base+hint+lastOfs] <= key < A[base+hint+ofs]
+			int maxOfs = len - hint;
+			while (ofs < maxOfs && key >= A[base + hint + ofs]) {
+				lastOfs = ofs;
+				ofs = (ofs << 1) + 1;
+				if (ofs <= 0) ofs = maxOfs; // int overflow
+			}
+			if (ofs > maxOfs) ofs = maxOfs;
+			// Make offsets relative to base
+			lastOfs += hint;
+			ofs += hint;
+		}
+		assert -1 <= lastOfs && lastOfs < ofs && ofs <= len;
+		// Binary search with invariant A[base+lastOfs-1] <= key < A[base+ofs]
+		lastOfs++;
+		while (lastOfs < ofs) {
+			int m = lastOfs + ((ofs - lastOfs) >>> 1);
+			if (key < A[base + m]) ofs = m;
+			else lastOfs = m + 1;
+		}
+		return ofs;
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] into A[l..r] using B[l..r] as
+	 * temporary storage, splitting the work into nParts independent
+	 * merges of equal output size that run in the given pool.
+	 * The split points are found by {@link #coRank}.
+	 * B.length must be at least r+1.
+	 */
+	public static void parallelMergeRuns(int[] A, int l, int m, int r, int[] B, ForkJoinPool pool, int nParts) {
+		if (ForkJoinTask.getPool() == pool)
+			parallelMergeRuns(A, l, m, r, B, nParts);
+		else
+			pool.invoke(ForkJoinTask.adapt(() -> parallelMergeRuns(A, l, m, r, B, nParts)));
+	}
+
+	/**
+	 * Like {@link #parallelMergeRuns(int[], int, int, int, int[], ForkJoinPool, int)},
+	 * but uses the pool of the calling task (or the common pool if not called
+	 * from a fork/join task).
+	 */
+	public static void parallelMergeRuns(int[] A, int l, int m, int r, int[] B, int nParts) {
+		assert B.length >= r+1;
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(r-l+1);
+		ParallelMergePart[] parts = new ParallelMergePart[nParts];
+		for (int p = 0; p < nParts; ++p)
+			parts[p] = new ParallelMergePart(A, l, m, r, B, p, nParts, false);
+		ForkJoinTask.invokeAll(parts);
+		for (int p = 0; p < nParts; ++p)
+			parts[p] = new ParallelMergePart(A, l, m, r, B, p, nParts, true);
+		ForkJoinTask.invokeAll(parts);
+	}
+
+	/**
+	 * Returns the number i of elements from run A[l..m-1] among the
+	 * first k elements of the stable merge of A[l..m-1] and A[m..r];
+	 * the other k-i elements are A[m..m+k-i-1].
+	 */
+	public static int coRank(final int[] A, final int l, final int m, final int r, final int k) {
+		int lo = Math.max(0, k - (r - m + 1)), hi = Math.min(k, m - l);
+		// invariant: A[l+i] <= A[m+k-i-1] for i < lo, i.e., more left elements needed
+		while (lo < hi) {
+			final int i = (lo + hi) >>> 1;
+			if (A[l+i] <= A[m+k-i-1]) lo = i + 1;
+			else hi = i;
+		}
+		return lo;
+	}
+
+	/**
+	 * One of nParts parts of a parallel merge, responsible for output
+	 * positions l+k0..l+k1-1 with k0 = n*part/nParts and k1 = n*(part+1)/nParts.
+	 * Merges the corresponding pieces of the runs into B, or, if copyBack is
+	 * true, copies the part from B back to A.
+	 */
+	@SuppressWarnings("serial")
+	private static final class ParallelMergePart extends RecursiveAction {
+		private final int[] A, B;
+		private final int l, m, r, part, nParts;
+		private final boolean copyBack;
+
+		ParallelMergePart(final int[] A, final int l, final int m, final int r, final int[] B,
+		                  final int part, final int nParts, final boolean copyBack) {
+			this.A = A; this.l = l; this.m = m; this.r = r; this.B = B;
+			this.part = part; this.nParts = nParts; this.copyBack = copyBack;
+		}
+
+		@Override
+		protected void compute() {
+			final int n = r - l + 1;
+			final int k0 = (int) ((long) n * part / nParts);
+			final int k1 = (int) ((long) n * (part + 1) / nParts);
+			if (copyBack) {
+				System.arraycopy(B, l + k0, A, l + k0, k1 - k0);
+				return;
+			}
+			final int i0 = coRank(A, l, m, r, k0), i1 = coRank(A, l, m, r, k1);
+			int i = l + i0, j = m + k0 - i0, o = l + k0;
+			final int iEnd = l + i1, jEnd = m + k1 - i1;
+			while (i < iEnd && j < jEnd)
+				B[o++] = A[i] <= A[j] ? A[i++] : A[j++];
+			if (i < iEnd) System.arraycopy(A, i, B, o, iEnd - i);
+			else System.arraycopy(A, j, B, o, jEnd - j);
+		}
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] stably, moving the payload columns
+	 * P[c][l..r] along with the keys: the shorter run is copied to B[0..]
+	 * (and PB[c][0..]) and merged back.
+	 * B and all PB[c] must have length at least min(m-l, r-m+1).
+	 */
+	public static void mergeRuns(int[] A, int[][] P, int l, int m, int r, int[] B, int[][] PB) {
+		mergeRuns(A, P, NO_LONG_COLUMNS, l, m, r, B, PB, NO_LONG_COLUMNS);
+	}
+
+	/**
+	 * Like {@link #mergeRuns(int[], int[][], int, int, int, int[], int[][])},
+	 * for long payload columns Q[c] with buffers QB[c]
+	 */
+	public static void mergeRuns(int[] A, long[][] Q, int l, int m, int r, int[] B, long[][] QB) {
+		mergeRuns(A, NO_INT_COLUMNS, Q, l, m, r, B, NO_INT_COLUMNS, QB);
+	}
+
+	/**
+	 * Like {@link #mergeRuns(int[], int[][], int, int, int, int[], int[][])},
+	 * moving both the int payload columns P[c] and the long payload
+	 * columns Q[c] (buffered in PB[c] and QB[c]) along with the keys
+	 */
+	public static void mergeRuns(int[] A, int[][] P, long[][] Q, int l, int m, int r,
+	                             int[] B, int[][] PB, long[][] QB) {
+		int n1 = m-l, n2 = r-m+1;
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(n1+n2);
+		final int nCols = P.length, nLongCols = Q.length;
+		if (n1 <= n2) {
+			System.arraycopy(A, l, B, 0, n1);
+			for (int c = 0; c < nCols; ++c) System.arraycopy(P[c], l, PB[c], 0, n1);
+			for (int c = 0; c < nLongCols; ++c) System.arraycopy(Q[c], l, QB[c], 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r) {
+				if (B[i1] <= A[i2]) {
+					A[o] = B[i1];
+					for (int c = 0; c < nCols; ++c) P[c][o] = PB[c][i1];
+					for (int c = 0; c < nLongCols; ++c) Q[c][o] = QB[c][i1];
+					++i1;
+				} else {
+					A[o] = A[i2];
+					for (int c = 0; c < nCols; ++c) P[c][o] = P[c][i2];
+					for (int c = 0; c < nLongCols; ++c) Q[c][o] = Q[c][i2];
+					++i2;
+				}
+				++o;
+			}
+			if (i1 < n1) {
+				System.arraycopy(B, i1, A, o, n1 - i1);
+				for (int c = 0; c < nCols; ++c) System.arraycopy(PB[c], i1, P[c], o, n1 - i1);
+				for (int c = 0; c < nLongCols; ++c) System.arraycopy(QB[c], i1, Q[c], o, n1 - i1);
+			}
+		} else {
+			System.arraycopy(A, m, B, 0, n2);
+			for (int c = 0; c < nCols; ++c) System.arraycopy(P[c], m, PB[c], 0, n2);
+			for (int c = 0; c < nLongCols; ++c) System.arraycopy(Q[c], m, QB[c], 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0) {
+				if (A[i1] <= B[i2]) {
+					A[o] = B[i2];
+					for (int c = 0; c < nCols; ++c) P[c][o] = PB[c][i2];
+					for (int c = 0; c < nLongCols; ++c) Q[c][o] = QB[c][i2];
+					--i2;
+				} else {
+					A[o] = A[i1];
+					for (int c = 0; c < nCols; ++c) P[c][o] = P[c][i1];
+					for (int c = 0; c < nLongCols; ++c) Q[c][o] = Q[c][i1];
+					--i1;
+				}
+				--o;
+			}
+			if (i2 >= 0) {
+				System.arraycopy(B, 0, A, l, i2 + 1);
+				for (int c = 0; c < nCols; ++c) System.arraycopy(PB[c], 0, P[c], l, i2 + 1);
+				for (int c = 0; c < nLongCols; ++c) System.arraycopy(QB[c], 0, Q[c], l, i2 + 1);
+			}
+		}
+	}
+
+	/**
+	 * Like {@link #mergeRuns(int[], int[][], int, int, int, int[], int[][])},
+	 * taking the buffers from the workspace; if they have to grow, they grow
+	 * to at most maxBufferLength.
+	 */
+	public static void mergeRuns(int[] A, int[][] P, int l, int m, int r, SortWorkspace workspace, int maxBufferLength) {
+		mergeRuns(A, P, NO_LONG_COLUMNS, l, m, r, workspace, maxBufferLength);
+	}
+
+	/**
+	 * Like {@link #mergeRuns(int[], int[][], long[][], int, int, int, int[], int[][], long[][])},
+	 * taking the buffers from the workspace; if they have to grow, they grow
+	 * to at most maxBufferLength.
+	 */
+	public static void mergeRuns(int[] A, int[][] P, long[][] Q, int l, int m, int r,
+	                             SortWorkspace workspace, int maxBufferLength) {
+		int len = Math.min(m-l, r-m+1);
+		mergeRuns(A, P, Q, l, m, r, workspace.buffer(len, maxBufferLength),
+				workspace.payloadBuffers(P.length, len, maxBufferLength),
+				workspace.longPayloadBuffers(Q.length, len, maxBufferLength));
+	}
+
+	/**
+	 * Merges runs X[l..m-1] and Y[m..r] into D[l..r], front to back.
+	 * D must not be X, but it may be Y (or both X and Y may be the same
+	 * array other than D); then the elements of Y[m..r] that are already
+	 * in place are not moved.
+	 */
+	public static void mergeRunsForward(int[] X, int[] Y, int l, int m, int r, int[] D) {
+		assert D != X;
+		int i = l, j = m, o = l;
+		while (i < m && j <= r)
+			D[o++] = Y[j] < X[i] ? Y[j++] : X[i++];
+		if (i < m) System.arraycopy(X, i, D, o, m - i);
+		else if (D != Y) System.arraycopy(Y, j, D, o, r - j + 1);
+	}
+
+	/**
+	 * Merges runs X[l..m-1] and Y[m..r] into D[l..r], back to front.
+	 * D must not be Y, but it may be X (or both X and Y may be the same
+	 * array other than D); then the elements of X[l..m-1] that are already
+	 * in place are not moved.
+	 */
+	public static void mergeRunsBackward(int[] X, int[] Y, int l, int m, int r, int[] D) {
+		assert D != Y;
+		int i = m - 1, j = r, o = r;
+		while (i >= l && j >= m)
+			D[o--] = Y[j] < X[i] ? X[i--] : Y[j--];
+		if (j >= m) System.arraycopy(Y, m, D, l, j - m + 1);
+		else if (D != X) System.arraycopy(X, l, D, l, i - l + 1);
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r], where each run is either in A or
+	 * at the same indices in B (as given by leftInB and rightInB),
+	 * moving every element only once:
+	 * if both runs are in the same array, they are merged into the other one;
+	 * otherwise, the shorter run is merged into the array holding the
+	 * longer run, from the side where that run is.
+	 * B.length must be at least r+1.
+	 *
+	 * @return whether the merged run is in B (otherwise it is in A)
+	 */
+	public static boolean mergeRunsPingPong(int[] A, int[] B, int l, int m, int r,
+	                                        boolean leftInB, boolean rightInB) {
+		assert B.length >= r+1;
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(r-l+1);
+		final int[] X = leftInB ? B : A, Y = rightInB ? B : A;
+		if (leftInB == rightInB) {
+			mergeRunsForward(X, Y, l, m, r, leftInB ? A : B);
+			return !leftInB;
+		} else if (m - l <= r - m + 1) {
+			mergeRunsForward(X, Y, l, m, r, Y);
+			return rightInB;
+		} else {
+			mergeRunsBackward(X, Y, l, m, r, X);
+			return leftInB;
+		}
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] in-place into A[l..r] without any buffer,
+	 * using Kim and Kutzner's SymMerge (Stable Minimum Storage Merging by
+	 * Symmetric Comparisons, ESA 2004): a symmetric binary search splits both
+	 * runs such that rotating the two inner parts leaves two independent
+	 * smaller merges.
+	 * Needs O(n log n) time (O(n) if one run is short) and O(log n) stack.
+	 */
+	public static void mergeRunsInPlace(int[] A, int l, int m, int r) {
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(r-l+1);
+		if (m <= l || m > r || A[m-1] <= A[m]) return;
+		symMerge(A, l, m, r + 1);
+	}
+
+	/** merges A[a..m-1] and A[m..b-1], both nonempty (half-open ranges) */
+	private static void symMerge(final int[] A, final int a, final int m, final int b) {
+		if (m - a == 1) {
+			// insert A[a] into A[m..b-1] before all equal elements (which come from the right run)
+			final int x = A[a];
+			int i = m, j = b;
+			while (i < j) {
+				int h = (i + j) >>> 1;
+				if (A[h] < x) i = h + 1; else j = h;
+			}
+			System.arraycopy(A, a + 1, A, a, i - 1 - a);
+			A[i - 1] = x;
+			return;
+		}
+		if (b - m == 1) {
+			// insert A[m] into A[a..m-1] behind all equal elements (which come from the left run)
+			final int x = A[m];
+			int i = a, j = m;
+			while (i < j) {
+				int h = (i + j) >>> 1;
+				if (x >= A[h]) i = h + 1; else j = h;
+			}
+			System.arraycopy(A, i, A, i + 1, m - i);
+			A[i] = x;
+			return;
+		}
+		final int mid = (a + b) >>> 1;
+		// find start such that A[start..m-1] and A[m..end-1] are swapped,
+		// where end = mid + m - start (symmetric around mid)
+		int start, hi;
+		if (m > mid) { start = mid - (b - m); hi = mid; }
+		else { start = a; hi = m; }
+		while (start < hi) {
+			int c = (start + hi) >>> 1;
+			if (A[(mid - c) + (m - 1)] >= A[c]) start = c + 1; else hi = c;
+		}
+		final int end = (mid - start) + m;
+		if (start < m && m < end) rotate(A, start, m, end);
+		if (a < start && start < mid) symMerge(A, a, start, mid);
+		if (mid < end && end < b) symMerge(A, mid, end, b);
+	}
+
+	/** swaps blocks A[a..m-1] and A[m..b-1] by three reversals */
+	public static void rotate(final int[] A, final int a, final int m, final int b) {
+		reverseRange(A, a, m - 1);
+		reverseRange(A, m, b - 1);
+		reverseRange(A, a, b - 1);
+	}
+
 	/**
 	 * Reverse the specified range of the specified array.
 	 *
@@ -72,11 +858,37 @@ public class MergesAndRuns {
 	}
 
 
+	/** Reverses a[lo..hi] */
+	public static void reverseRange(long[] a, int lo, int hi) {
+		while (lo < hi) {
+			long t = a[lo]; a[lo++] = a[hi]; a[hi--] = t;
+		}
+	}
+
+	/** Reverses A[lo..hi] and the payload columns P[c][lo..hi] */
+	public static void reverseRange(int[] A, int[][] P, int lo, int hi) {
+		reverseRange(A, P, NO_LONG_COLUMNS, lo, hi);
+	}
+
+	/** Reverses A[lo..hi] and the payload columns P[c][lo..hi] and Q[c][lo..hi] */
+	public static void reverseRange(int[] A, int[][] P, long[][] Q, int lo, int hi) {
+		reverseRange(A, lo, hi);
+		for (int[] col : P) reverseRange(col, lo, hi);
+		for (long[] col : Q) reverseRange(col, lo, hi);
+	}
+
 	public static int extendWeaklyIncreasingRunLeft(final int[] A, int i, final int left) {
 		while (i > left && A[i-1] <= A[i]) --i;
 		return i;
 	}
 
+	/*
+	 * The scans below stay plain counted loops on purpose: C2 unrolls them and
+	 * the exit branch is perfectly predictable inside a run.  Checking blocks of
+	 * 8 pairs with a branch-free OR of differences measured slower (about 1.5x
+	 * on sorted input, 1.3x on short runs), so there is no separate block scan.
+	 */
+
 	public static int extendWeaklyIncreasingRunRight(final int[] A, int i, final int right) {
 		while (i < right && A[i+1] >= A[i]) ++i;
 		return i;
@@ -99,10 +911,36 @@ public class MergesAndRuns {
 		if (j == right) return j;
 		// Find end of run, and reverse range if descending
 		if (A[j] > A[++j]) { // Strictly Descending
-			while (j < right && A[j+1] < A[j]) ++j;
+			j = extendStrictlyDecreasingRunRight(A, j, right);
 			reverseRange(A, i, j);
 		} else { // Weakly Ascending
-			while (j < right && A[j+1] >= A[j]) ++j;
+			j = extendWeaklyIncreasingRunRight(A, j, right);
+		}
+		return j;
+	}
+
+	/**
+	 * Like {@link #extendAndReverseRunRight(int[], int, int)},
+	 * reversing the payload columns P[c] along with A
+	 */
+	public static int extendAndReverseRunRight(final int[] A, final int[][] P, int i, final int right) {
+		return extendAndReverseRunRight(A, P, NO_LONG_COLUMNS, i, right);
+	}
+
+	/**
+	 * Like {@link #extendAndReverseRunRight(int[], int, int)},
+	 * reversing the payload columns P[c] and Q[c] along with A
+	 */
+	public static int extendAndReverseRunRight(final int[] A, final int[][] P, final long[][] Q, int i, final int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (A[j] > A[++j]) { // Strictly Descending
+			j = extendStrictlyDecreasingRunRight(A, j, right);
+			reverseRange(A, P, Q, i, j);
+		} else { // Weakly Ascending
+			j = extendWeaklyIncreasingRunRight(A, j, right);
 		}
 		return j;
 	}
@@ -122,6 +960,135 @@ public class MergesAndRuns {
 	}
 
 
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] (sorted by c) stably into A[l..r]
+	 * by copying the shorter run to B[0..] and merging back.
+	 * B.length must be at least min(m-l, r-m+1).
+	 */
+	public static void mergeRuns(int[] A, int l, int m, int r, IntComparator c, int[] B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (COUNT_MERGE_COSTS) totalMergeCosts.add(n1+n2);
+		int mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			mergeRunsXor(A, l, m, r, mask, B);
+			return;
+		}
+		if (n1 <= n2) {
+			System.arraycopy(A, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r)
+				A[o++] = c.compare(B[i1], A[i2]) <= 0 ? B[i1++] : A[i2++];
+			if (i1 < n1) System.arraycopy(B, i1, A, o, n1 - i1);
+		} else {
+			System.arraycopy(A, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0)
+				A[o--] = c.compare(A[i1], B[i2]) <= 0 ? B[i2--] : A[i1--];
+			if (i2 >= 0) System.arraycopy(B, 0, A, l, i2 + 1);
+		}
+	}
+
+	/**
+	 * {@link #mergeRuns(int[], int, int, int, IntComparator, int[])} for the constants
+	 * of {@link IntComparator}: compares the elements xor mask directly, with no
+	 * comparator call in the loop
+	 */
+	private static void mergeRunsXor(int[] A, int l, int m, int r, int mask, int[] B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (n1 <= n2) {
+			System.arraycopy(A, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r)
+				A[o++] = (B[i1] ^ mask) <= (A[i2] ^ mask) ? B[i1++] : A[i2++];
+			if (i1 < n1) System.arraycopy(B, i1, A, o, n1 - i1);
+		} else {
+			System.arraycopy(A, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0)
+				A[o--] = (A[i1] ^ mask) <= (B[i2] ^ mask) ? B[i2--] : A[i1--];
+			if (i2 >= 0) System.arraycopy(B, 0, A, l, i2 + 1);
+		}
+	}
+
+	/**
+	 * Like {@link #mergeRuns(int[], int, int, int, IntComparator, int[])},
+	 * taking the buffer from the workspace; if it has to grow, it grows
+	 * to at most maxBufferLength.
+	 */
+	public static void mergeRuns(int[] A, int l, int m, int r, IntComparator c, SortWorkspace workspace, int maxBufferLength) {
+		mergeRuns(A, l, m, r, c, workspace.buffer(Math.min(m-l, r-m+1), maxBufferLength));
+	}
+
+	public static int extendWeaklyIncreasingRunLeft(final int[] A, int i, final int left, final IntComparator c) {
+		while (i > left && c.compare(A[i-1], A[i]) <= 0) --i;
+		return i;
+	}
+
+	public static int extendWeaklyIncreasingRunRight(final int[] A, int i, final int right, final IntComparator c) {
+		while (i < right && c.compare(A[i+1], A[i]) >= 0) ++i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunLeft(final int[] A, int i, final int left, final IntComparator c) {
+		while (i > left && c.compare(A[i-1], A[i]) > 0) --i;
+		return i;
+	}
+
+	public static int extendStrictlyDecreasingRunRight(final int[] A, int i, final int right, final IntComparator c) {
+		while (i < right && c.compare(A[i+1], A[i]) < 0) ++i;
+		return i;
+	}
+
+	/**
+	 * Finds the run (by c) starting at A[i] and ending at most at A[right],
+	 * reversing it if it is strictly descending; returns the end of the run.
+	 */
+	public static int extendAndReverseRunRight(final int[] A, int i, final int right, final IntComparator c) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		final int mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			// Find end of run by comparing the elements xor mask, no comparator calls
+			if ((A[j] ^ mask) > (A[++j] ^ mask)) { // Strictly Descending
+				while (j < right && (A[j+1] ^ mask) < (A[j] ^ mask)) ++j;
+				reverseRange(A, i, j);
+			} else { // Weakly Ascending
+				while (j < right && (A[j+1] ^ mask) >= (A[j] ^ mask)) ++j;
+			}
+			return j;
+		}
+		// Find end of run, and reverse range if descending
+		if (c.compare(A[j], A[++j]) > 0) { // Strictly Descending
+			while (j < right && c.compare(A[j+1], A[j]) < 0) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && c.compare(A[j+1], A[j]) >= 0) ++j;
+		}
+		return j;
+	}
+
+	/** Not a mask: c is not one of the orders recognized by {@link #xorOrderMask} */
+	public static final int NO_XOR_ORDER = 1;
+
+	/**
+	 * If c is one of the constants of {@link IntComparator}, returns the mask m such
+	 * that c orders a, b like the natural order orders a^m, b^m;
+	 * otherwise returns {@link #NO_XOR_ORDER}.
+	 */
+	public static int xorOrderMask(IntComparator c) {
+		if (c == IntComparator.NATURAL) return 0;
+		if (c == IntComparator.REVERSE) return -1;
+		if (c == IntComparator.UNSIGNED) return Integer.MIN_VALUE;
+		if (c == IntComparator.UNSIGNED_REVERSE) return Integer.MAX_VALUE;
+		return NO_XOR_ORDER;
+	}
+
+	/** A[i] ^= mask for left <= i <= right */
+	public static void xorRange(int[] A, int left, int right, int mask) {
+		for (int i = left; i <= right; ++i) A[i] ^= mask;
+	}
+
 	public static void main(String[] args) {
 
 		//         0  1  2  3  4  5 6 7 8 9  10
@@ -0,0 +1,330 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Stable powersort and peeksort for object arrays and lists,
+ * ordered by a {@link Comparator} or by natural ordering;
+ * drop-in replacements for {@link Arrays#sort(Object[], Comparator)}
+ * and {@link List#sort(Comparator)}.
+ *
+ * Merges copy only the shorter run (as {@link MergesAndRuns#mergeRunsCopyHalf}),
+ * taking elements from the left run on ties, so all methods are stable;
+ * the buffer needs at most n/2 elements, starting at index 0.
+ * Comparators that violate their contract do not cause exceptions
+ * (the result is then unspecified).
+ */
+public class ObjectMergesorts {
+
+	/** minRunLen used by {@link #sort} */
+	public static final int DEFAULT_MIN_RUN_LEN = 24;
+
+	private ObjectMergesorts() {}
+
+	/** Sorts A stably by natural ordering, using powersort */
+	public static <T extends Comparable<? super T>> void sort(T[] A) {
+		sort(A, 0, A.length - 1, Comparator.<T>naturalOrder());
+	}
+
+	/** Sorts A stably by c, using powersort */
+	public static <T> void sort(T[] A, Comparator<? super T> c) {
+		sort(A, 0, A.length - 1, c);
+	}
+
+	/** Sorts A[left..right] stably by c, using powersort */
+	public static <T> void sort(T[] A, int left, int right, Comparator<? super T> c) {
+		if (right <= left) return;
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN, c, new Object[(right - left + 1) >> 1]);
+	}
+
+	/** Sorts list stably by natural ordering, using powersort */
+	public static <T extends Comparable<? super T>> void sort(List<T> list) {
+		sort(list, Comparator.<T>naturalOrder());
+	}
+
+	/**
+	 * Sorts list stably by c, using powersort on an array copy
+	 * (like {@link List#sort(Comparator)}).
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> void sort(List<T> list, Comparator<? super T> c) {
+		Object[] A = list.toArray();
+		sort(A, 0, A.length - 1, (Comparator<Object>) c);
+		ListIterator<T> it = list.listIterator();
+		for (Object e : A) {
+			it.next();
+			it.set((T) e);
+		}
+	}
+
+	/** Sorts list stably by c, using peeksort on an array copy */
+	@SuppressWarnings("unchecked")
+	public static <T> void peeksort(List<T> list, int insertionSortThreshold, Comparator<? super T> c) {
+		Object[] A = list.toArray();
+		peeksort(A, 0, A.length - 1, insertionSortThreshold, (Comparator<Object>) c, new Object[A.length >> 1]);
+		ListIterator<T> it = list.listIterator();
+		for (Object e : A) {
+			it.next();
+			it.set((T) e);
+		}
+	}
+
+	/** Sorts A stably by the int keys extracted by key, see {@link #sortByIntKey(Object[], int, int, ToIntFunction)} */
+	public static <T> void sortByIntKey(T[] A, ToIntFunction<? super T> key) {
+		sortByIntKey(A, 0, A.length - 1, key);
+	}
+
+	/**
+	 * Sorts A[left..right] stably by the int keys extracted by key.
+	 * Each key is extracted once and packed with its index into a long
+	 * (key in the high, index in the low half), so powersort compares
+	 * primitives only; the distinct indices make the result stable.
+	 * A is then permuted by the sorted indices.
+	 */
+	public static <T> void sortByIntKey(T[] A, int left, int right, ToIntFunction<? super T> key) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		long[] packed = new long[n];
+		for (int i = 0; i < n; ++i)
+			packed[i] = ((long) key.applyAsInt(A[left + i]) << 32) | i;
+		LongMergesorts.powersort(packed, 0, n - 1, LongMergesorts.DEFAULT_MIN_RUN_LEN, new long[n]);
+		permute(A, left, packed, 0xFFFFFFFFL);
+	}
+
+	/** Sorts A stably by the long keys extracted by key, see {@link #sortByLongKey(Object[], int, int, ToLongFunction)} */
+	public static <T> void sortByLongKey(T[] A, ToLongFunction<? super T> key) {
+		sortByLongKey(A, 0, A.length - 1, key);
+	}
+
+	/**
+	 * Sorts A[left..right] stably by the long keys extracted by key.
+	 * If the keys span a range small enough to leave room for the indices,
+	 * (key - min) and index are packed into one long and sorted as in
+	 * {@link #sortByIntKey(Object[], int, int, ToIntFunction)};
+	 * otherwise, this sorts by comparing the cached keys.
+	 */
+	public static <T> void sortByLongKey(T[] A, int left, int right, ToLongFunction<? super T> key) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		long[] keys = new long[n];
+		long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+		for (int i = 0; i < n; ++i) {
+			long k = keys[i] = key.applyAsLong(A[left + i]);
+			if (k < min) min = k;
+			if (k > max) max = k;
+		}
+		int indexBits = 32 - Integer.numberOfLeadingZeros(n - 1);
+		long range = max - min;
+		if (range < 0 || (range >>> (63 - indexBits)) != 0) {
+			// keys too far apart to pack; sort keys with indices as payload instead
+			sortByCachedKeys(A, left, keys);
+			return;
+		}
+		for (int i = 0; i < n; ++i)
+			keys[i] = ((keys[i] - min) << indexBits) | i;
+		LongMergesorts.powersort(keys, 0, n - 1, LongMergesorts.DEFAULT_MIN_RUN_LEN, new long[n]);
+		permute(A, left, keys, (1L << indexBits) - 1);
+	}
+
+	/**
+	 * Sorts A[left..left+keys.length-1] stably by keys, sorting the keys
+	 * with their indices as payload by primitive powersort
+	 */
+	private static void sortByCachedKeys(Object[] A, int left, long[] keys) {
+		int n = keys.length;
+		int[] indices = Argsort.identity(n);
+		LongMergesorts.powersort(keys, indices, 0, n - 1, LongMergesorts.DEFAULT_MIN_RUN_LEN,
+				new long[n >> 1], new int[n >> 1]);
+		Object[] copy = Arrays.copyOfRange(A, left, left + n);
+		for (int i = 0; i < n; ++i) A[left + i] = copy[indices[i]];
+	}
+
+	/** A[left+i] = old A[left + (packed[i] & indexMask)] for all i */
+	private static void permute(Object[] A, int left, long[] packed, long indexMask) {
+		Object[] copy = Arrays.copyOfRange(A, left, left + packed.length);
+		for (int i = 0; i < packed.length; ++i)
+			A[left + i] = copy[(int) (packed[i] & indexMask)];
+	}
+
+	/**
+	 * Sorts A[left..right] stably by c with powersort (MSB node powers),
+	 * extending runs to minRunLen by insertion sort.
+	 * buffer.length must be at least (right-left+1)/2.
+	 */
+	public static <T> void powersort(T[] A, int left, int right, int minRunLen, Comparator<? super T> c, Object[] buffer) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right, c);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, startA, endA, lenA, c);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right, c);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, startB, endB, lenB, c);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, c, buffer);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, c, buffer);
+		}
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/**
+	 * Sorts A[left..right] stably by c with peeksort, sorting subproblems of
+	 * at most insertionSortThreshold elements by insertion sort.
+	 * buffer.length must be at least (right-left+1)/2.
+	 */
+	public static <T> void peeksort(T[] A, int left, int right, int insertionSortThreshold, Comparator<? super T> c, Object[] buffer) {
+		if (right <= left) return;
+		peeksort(A, left, right, left, right, c, buffer, insertionSortThreshold);
+	}
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs.
+	 */
+	private static <T> void peeksort(T[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                                 Comparator<? super T> c, Object[] B, int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			insertionsort(A, left, right, leftRunEnd - left + 1, c);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksort(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, c, B, insertionSortThreshold);
+			mergeRuns(A, left, leftRunEnd+1, right, c, B);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksort(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, c, B, insertionSortThreshold);
+			mergeRuns(A, left, rightRunStart, right, c, B);
+		} else {
+			// find middle run
+			final int l = left == leftRunEnd ? left : leftRunEnd+1;
+			final int r = right == rightRunStart ? right : rightRunStart-1;
+			int i, j;
+			if (c.compare(A[mid], A[mid+1]) <= 0) {
+				for (i = mid; i > l && c.compare(A[i-1], A[i]) <= 0; --i);
+				if (mid+1 == rightRunStart) j = mid;
+				else for (j = mid+1; j < r && c.compare(A[j], A[j+1]) <= 0; ++j);
+			} else {
+				for (i = mid; i > l && c.compare(A[i-1], A[i]) > 0; --i);
+				if (mid+1 == rightRunStart) j = mid;
+				else for (j = mid+1; j < r && c.compare(A[j], A[j+1]) > 0; ++j);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksort(A, left, i-1, leftRunEnd, i-1, c, B, insertionSortThreshold);
+				peeksort(A, i, right, j, rightRunStart, c, B, insertionSortThreshold);
+				mergeRuns(A, left, i, right, c, B);
+			} else {
+				// |XX   xxx|x      X|
+				peeksort(A, left, j, leftRunEnd, i, c, B, insertionSortThreshold);
+				peeksort(A, j+1, right, j+1, rightRunStart, c, B, insertionSortThreshold);
+				mergeRuns(A, left, j+1, right, c, B);
+			}
+		}
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] stably into A[l..r] by copying
+	 * the shorter run to B[0..] and merging back.
+	 * B.length must be at least min(m-l, r-m+1).
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> void mergeRuns(T[] A, int l, int m, int r, Comparator<? super T> c, Object[] B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		if (n1 <= n2) {
+			System.arraycopy(A, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			while (i1 < n1 && i2 <= r)
+				A[o++] = c.compare(A[i2], (T) B[i1]) < 0 ? A[i2++] : (T) B[i1++];
+			if (i1 < n1) System.arraycopy(B, i1, A, o, n1 - i1);
+		} else {
+			System.arraycopy(A, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			while (i1 >= l && i2 >= 0)
+				A[o--] = c.compare((T) B[i2], A[i1]) < 0 ? A[i1--] : (T) B[i2--];
+			if (i2 >= 0) System.arraycopy(B, 0, A, l, i2 + 1);
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] stably by straight-insertion sort, assuming the
+	 * leftmost nPresorted elements form a weakly increasing run
+	 */
+	public static <T> void insertionsort(T[] A, int left, int right, int nPresorted, Comparator<? super T> c) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final T v = A[i];
+			while (c.compare(v, A[j]) < 0) {
+				A[j+1] = A[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v;
+		}
+	}
+
+	/** Reverses A[lo..hi] */
+	public static void reverseRange(Object[] A, int lo, int hi) {
+		while (lo < hi) {
+			Object t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+
+	/**
+	 * Finds the run starting at A[i] and ending at most at A[right],
+	 * reversing it if it is strictly descending (which keeps it stable);
+	 * returns the end of the run.
+	 */
+	public static <T> int extendAndReverseRunRight(T[] A, int i, int right, Comparator<? super T> c) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (c.compare(A[j], A[++j]) > 0) { // Strictly Descending
+			while (j < right && c.compare(A[j+1], A[j]) < 0) ++j;
+			reverseRange(A, i, j);
+		} else { // Weakly Ascending
+			while (j < right && c.compare(A[j+1], A[j]) >= 0) ++j;
+		}
+		return j;
+	}
+}
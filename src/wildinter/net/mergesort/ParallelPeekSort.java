@@ -0,0 +1,132 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static wildinter.net.mergesort.MergesAndRuns.*;
+
+/**
+ * Parallel peeksort using the fork/join framework.
+ *
+ * Subproblems with at least grainSize elements fork their two recursive
+ * calls (left and right of the middle run) as independent tasks;
+ * smaller ones are sorted by sequential {@link PeekSort#peeksort}.
+ * All tasks share one buffer, in which each subproblem only touches its
+ * own region B[left..right].
+ * Merges of more than 2*grainSize elements are themselves split into
+ * independent parts, see {@link Merger#parallel}.
+ * The recursion is exactly as in sequential peeksort, so the same merges
+ * are done.
+ */
+public class ParallelPeekSort implements Sorter {
+
+	/** default for grainSize; same granularity as Arrays.parallelSort */
+	public static final int DEFAULT_GRAIN_SIZE = 1 << 13;
+
+	private final int insertionSortThreshold;
+	private final int grainSize;
+	private final ForkJoinPool pool;
+	private final Merger parallelMerger;
+
+	public ParallelPeekSort(final int insertionSortThreshold) {
+		this(insertionSortThreshold, DEFAULT_GRAIN_SIZE, ForkJoinPool.commonPool());
+	}
+
+	public ParallelPeekSort(final int insertionSortThreshold, final int grainSize, final ForkJoinPool pool) {
+		if (grainSize < 1) throw new IllegalArgumentException();
+		this.insertionSortThreshold = insertionSortThreshold;
+		this.grainSize = grainSize;
+		this.pool = pool;
+		this.parallelMerger = Merger.parallel(pool, grainSize);
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right) {
+		sort(A, left, right, new SortWorkspace());
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+		final int[] B = workspace.buffer(right + 1);
+		if (right - left + 1 < grainSize || pool.getParallelism() < 2)
+			PeekSort.peeksort(A, left, right, left, right, B, insertionSortThreshold, Merger.BITONIC);
+		else
+			pool.invoke(new PeeksortTask(A, left, right, left, right, B));
+	}
+
+	/** Sorts A[left..right] where A[left..leftRunEnd] and A[rightRunStart..right] are runs. */
+	@SuppressWarnings("serial")
+	private final class PeeksortTask extends RecursiveAction {
+		private final int[] A, B;
+		private final int left, right, leftRunEnd, rightRunStart;
+
+		PeeksortTask(final int[] A, final int left, final int right,
+		             final int leftRunEnd, final int rightRunStart, final int[] B) {
+			this.A = A;
+			this.left = left;
+			this.right = right;
+			this.leftRunEnd = leftRunEnd;
+			this.rightRunStart = rightRunStart;
+			this.B = B;
+		}
+
+		@Override
+		protected void compute() {
+			if (leftRunEnd == right || rightRunStart == left) return;
+			if (right - left + 1 < grainSize) {
+				PeekSort.peeksort(A, left, right, leftRunEnd, rightRunStart, B, insertionSortThreshold, Merger.BITONIC);
+				return;
+			}
+			int mid = left + ((right - left) >> 1);
+			if (mid <= leftRunEnd) {
+				// |XXXXXXXX|XX     X|
+				new PeeksortTask(A, leftRunEnd+1, right, leftRunEnd+1, rightRunStart, B).compute();
+				parallelMerger.merge(A, left, leftRunEnd+1, right, B);
+			} else if (mid >= rightRunStart) {
+				// |XX     X|XXXXXXXX|
+				new PeeksortTask(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B).compute();
+				parallelMerger.merge(A, left, rightRunStart, right, B);
+			} else {
+				// find middle run
+				final int i, j;
+				if (A[mid] <= A[mid+1]) {
+					i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+					j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1);
+				} else {
+					i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+					j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1);
+					reverseRange(A, i, j);
+				}
+				if (i == left && j == right) return;
+				if (mid - i < j - mid) {
+					// |XX     x|xxxx   X|
+					invokeAll(new PeeksortTask(A, left, i-1, leftRunEnd, i-1, B),
+							new PeeksortTask(A, i, right, j, rightRunStart, B));
+					parallelMerger.merge(A, left, i, right, B);
+				} else {
+					// |XX   xxx|x      X|
+					invokeAll(new PeeksortTask(A, left, j, leftRunEnd, i, B),
+							new PeeksortTask(A, j+1, right, j+1, rightRunStart, B));
+					parallelMerger.merge(A, left, j+1, right, B);
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName()
+				+ "+iscutoff=" + insertionSortThreshold
+				+ "+grain=" + grainSize
+				+ "+p=" + pool.getParallelism();
+	}
+
+	public static void main(String[] args) {
+		int[] A = Inputs.randomRuns(100, 10, new Random());
+		System.out.println(Arrays.toString(A));
+		new ParallelPeekSort(1, 10, new ForkJoinPool(4)).sort(A);
+		System.out.println(Arrays.toString(A));
+	}
+}
@@ -0,0 +1,302 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static wildinter.net.mergesort.MergesAndRuns.extendAndReverseRunRight;
+import static wildinter.net.mergesort.MergesAndRuns.mergeRuns;
+
+/**
+ * Parallel powersort using the fork/join framework.
+ *
+ * The input is cut into one chunk per worker thread and natural runs are
+ * detected (and extended to minRunLen) in all chunks concurrently.
+ * Afterwards, runs that cross a chunk boundary are stitched back together:
+ * the first run of a chunk is joined to the run before it if it either
+ * continues that run in sorted order or if all its elements are strictly
+ * smaller than all elements of that run; in the latter case, the pieces are
+ * swapped (this reassembles descending runs that were cut by a chunk
+ * boundary).
+ * The resulting runs are merged following the same power-based merge
+ * tree as {@link PowerSort#powersort}; independent subtrees are merged
+ * by separate fork/join tasks, and large merges are split into independent
+ * parts, see {@link Merger#parallel}.
+ *
+ * Merges are stable and runs are only reversed if strictly descending,
+ * so the sort is stable, and the result is the same as for sequential
+ * powersort.
+ * Inputs and merge subtrees with fewer than sequentialThreshold elements
+ * are handled sequentially.
+ */
+public class ParallelPowerSort implements Sorter {
+
+	/** default for sequentialThreshold; same granularity as Arrays.parallelSort */
+	public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 13;
+
+	private final int minRunLen;
+	private final int sequentialThreshold;
+	private final ForkJoinPool pool;
+	private final PowerSort sequential;
+	private final Merger parallelMerger;
+
+	public ParallelPowerSort(final int minRunLen) {
+		this(minRunLen, DEFAULT_SEQUENTIAL_THRESHOLD, ForkJoinPool.commonPool());
+	}
+
+	public ParallelPowerSort(final int minRunLen, final int sequentialThreshold, final ForkJoinPool pool) {
+		if (minRunLen < 1 || sequentialThreshold < 1)
+			throw new IllegalArgumentException();
+		this.minRunLen = minRunLen;
+		this.sequentialThreshold = sequentialThreshold;
+		this.pool = pool;
+		this.sequential = new PowerSort(true, false, minRunLen);
+		this.parallelMerger = Merger.parallel(pool, sequentialThreshold);
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right) {
+		sort(A, left, right, new SortWorkspace());
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+		int n = right - left + 1;
+		int nChunks = Math.min(pool.getParallelism(), n / Math.max(sequentialThreshold, minRunLen));
+		if (nChunks < 2) {
+			sequential.sort(A, left, right, workspace);
+			return;
+		}
+		pool.invoke(new PowersortTask(A, left, right, nChunks, workspace));
+	}
+
+	/** Detects runs in all chunks, stitches them and merges them. */
+	@SuppressWarnings("serial")
+	private final class PowersortTask extends RecursiveAction {
+		private final int[] A;
+		private final int left, right, nChunks;
+		private final SortWorkspace workspace;
+
+		PowersortTask(final int[] A, final int left, final int right, final int nChunks,
+		              final SortWorkspace workspace) {
+			this.A = A;
+			this.left = left;
+			this.right = right;
+			this.nChunks = nChunks;
+			this.workspace = workspace;
+		}
+
+		private int chunkStart(int c) {
+			return left + (int) ((long) (right - left + 1) * c / nChunks);
+		}
+
+		@Override
+		protected void compute() {
+			final int[] A = this.A;
+			RunDetectionTask[] chunks = new RunDetectionTask[nChunks];
+			for (int c = 0; c < nChunks; ++c)
+				chunks[c] = new RunDetectionTask(A, chunkStart(c), chunkStart(c+1) - 1, minRunLen);
+			invokeAll(chunks);
+
+			int maxRuns = 0;
+			for (final RunDetectionTask chunk : chunks) maxRuns += chunk.nRuns;
+			int[] runStart = workspace.starts(maxRuns), runEnd = workspace.ends(maxRuns);
+			// pieces of runs that cross chunk boundaries; at most two per chunk
+			int[] pieceRun = new int[2*nChunks], pieceSrc = new int[2*nChunks], pieceLen = new int[2*nChunks];
+			boolean[] piecePrepend = new boolean[2*nChunks];
+			int nRuns = 0, nPieces = 0;
+			int curMin = 0, curMax = 0; // smallest and largest element of last run
+			for (final RunDetectionTask chunk : chunks) {
+				int j = 0;
+				if (nRuns > 0) {
+					final int s = chunk.left, e = chunk.runEnds[0], r = nRuns - 1;
+					final boolean inOrder = curMax <= A[s];
+					final boolean allSmaller = A[e] < curMin;
+					if (inOrder || allSmaller) {
+						if (nPieces == 0 || pieceRun[nPieces-1] != r) {
+							pieceRun[nPieces] = r; pieceSrc[nPieces] = runStart[r];
+							pieceLen[nPieces] = runEnd[r] - runStart[r] + 1;
+							piecePrepend[nPieces++] = false;
+						}
+						pieceRun[nPieces] = r; pieceSrc[nPieces] = s;
+						pieceLen[nPieces] = e - s + 1;
+						piecePrepend[nPieces++] = allSmaller;
+						if (inOrder) curMax = A[e]; else curMin = A[s];
+						runEnd[r] = e;
+						j = 1;
+					}
+				}
+				for (; j < chunk.nRuns; ++j) {
+					runStart[nRuns] = j == 0 ? chunk.left : chunk.runEnds[j-1] + 1;
+					runEnd[nRuns] = chunk.runEnds[j];
+					curMin = A[runStart[nRuns]];
+					curMax = A[runEnd[nRuns]];
+					++nRuns;
+				}
+			}
+			final int[] buffer = workspace.buffer(right + 1);
+			if (nPieces > 0)
+				rearrangePieces(buffer, runStart, pieceRun, pieceSrc, pieceLen, piecePrepend, nPieces);
+
+			final int[] power = new int[nRuns];
+			for (int i = 0; i < nRuns - 1; ++i)
+				power[i] = PowerSort.nodePower(left, right, runStart[i], runStart[i+1], runEnd[i+1]);
+			invokeAll(new MergeTask(A, buffer, runStart, runEnd, power, 0, nRuns - 1));
+		}
+
+		/**
+		 * Moves the pieces of stitched runs into sorted order: Pieces that
+		 * were all smaller go to the front of their run (last one first),
+		 * all others keep their relative order.
+		 */
+		private void rearrangePieces(final int[] buffer, final int[] runStart,
+		                             final int[] pieceRun, final int[] pieceSrc, final int[] pieceLen,
+		                             final boolean[] piecePrepend, final int nPieces) {
+			CopyTask[] moves = new CopyTask[nPieces];
+			int nMoves = 0;
+			for (int first = 0, last; first < nPieces; first = last) {
+				final int r = pieceRun[first];
+				int prependedLen = 0;
+				for (last = first; last < nPieces && pieceRun[last] == r; ++last)
+					if (piecePrepend[last]) prependedLen += pieceLen[last];
+				if (prependedLen == 0) continue; // already in order
+				int front = runStart[r] + prependedLen, back = front;
+				for (int p = first; p < last; ++p) {
+					int dst;
+					if (piecePrepend[p]) { front -= pieceLen[p]; dst = front; }
+					else { dst = back; back += pieceLen[p]; }
+					moves[nMoves++] = new CopyTask(A, pieceSrc[p], buffer, dst, pieceLen[p]);
+				}
+			}
+			moves = Arrays.copyOf(moves, nMoves);
+			invokeAll(moves);
+			CopyTask[] copyBack = new CopyTask[nMoves];
+			for (int i = 0; i < nMoves; ++i)
+				copyBack[i] = new CopyTask(buffer, moves[i].dstPos, A, moves[i].dstPos, moves[i].len);
+			invokeAll(copyBack);
+		}
+	}
+
+	/**
+	 * Finds runs in A[left..right] like sequential powersort does,
+	 * i.e., reverses descending runs and extends short runs to minRunLen,
+	 * and records the end points of all runs.
+	 */
+	@SuppressWarnings("serial")
+	private static final class RunDetectionTask extends RecursiveAction {
+		private final int[] A;
+		final int left, right, minRunLen;
+		int[] runEnds = new int[16];
+		int nRuns = 0;
+
+		RunDetectionTask(final int[] A, final int left, final int right, final int minRunLen) {
+			this.A = A;
+			this.left = left;
+			this.right = right;
+			this.minRunLen = minRunLen;
+		}
+
+		@Override
+		protected void compute() {
+			for (int start = left; start <= right; ) {
+				int end = extendAndReverseRunRight(A, start, right);
+				int len = end - start + 1;
+				if (len < minRunLen) {
+					end = Math.min(right, start + minRunLen - 1);
+					Insertionsort.insertionsort(A, start, end, len);
+				}
+				if (nRuns == runEnds.length) runEnds = Arrays.copyOf(runEnds, 2 * nRuns);
+				runEnds[nRuns++] = end;
+				start = end + 1;
+			}
+		}
+	}
+
+	/** Copies src[srcPos..srcPos+len-1] to dst[dstPos..dstPos+len-1]. */
+	@SuppressWarnings("serial")
+	private static final class CopyTask extends RecursiveAction {
+		private final int[] src, dst;
+		final int srcPos, dstPos, len;
+
+		CopyTask(final int[] src, final int srcPos, final int[] dst, final int dstPos, final int len) {
+			this.src = src;
+			this.srcPos = srcPos;
+			this.dst = dst;
+			this.dstPos = dstPos;
+			this.len = len;
+		}
+
+		@Override
+		protected void compute() {
+			System.arraycopy(src, srcPos, dst, dstPos, len);
+		}
+	}
+
+	/**
+	 * Merges runs lo..hi (inclusive).
+	 * The root of the merge tree is the run boundary with the smallest
+	 * power; it is unique since between any two boundaries of the same power,
+	 * there is one with smaller power.
+	 */
+	@SuppressWarnings("serial")
+	private final class MergeTask extends RecursiveAction {
+		private final int[] A, B, runStart, runEnd, power;
+		private final int lo, hi;
+
+		MergeTask(final int[] A, final int[] B, final int[] runStart, final int[] runEnd,
+		          final int[] power, final int lo, final int hi) {
+			this.A = A;
+			this.B = B;
+			this.runStart = runStart;
+			this.runEnd = runEnd;
+			this.power = power;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if (lo == hi) return;
+			if (runEnd[hi] - runStart[lo] + 1 < sequentialThreshold) {
+				mergeSequentially(lo, hi);
+				return;
+			}
+			int root = rootOf(lo, hi);
+			invokeAll(new MergeTask(A, B, runStart, runEnd, power, lo, root),
+					new MergeTask(A, B, runStart, runEnd, power, root + 1, hi));
+			parallelMerger.merge(A, runStart[lo], runStart[root+1], runEnd[hi], B);
+		}
+
+		private void mergeSequentially(int lo, int hi) {
+			if (lo == hi) return;
+			int root = rootOf(lo, hi);
+			mergeSequentially(lo, root);
+			mergeSequentially(root + 1, hi);
+			mergeRuns(A, runStart[lo], runStart[root+1], runEnd[hi], B);
+		}
+
+		/** the index i in [lo..hi-1] with minimal power[i] */
+		private int rootOf(int lo, int hi) {
+			int root = lo;
+			for (int i = lo + 1; i < hi; ++i)
+				if (power[i] < power[root]) root = i;
+			return root;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName()
+				+ "+minRunLen=" + minRunLen
+				+ "+seqThreshold=" + sequentialThreshold
+				+ "+p=" + pool.getParallelism();
+	}
+
+	public static void main(String[] args) {
+		int[] A = Inputs.randomRuns(100, 10, new Random());
+		System.out.println(Arrays.toString(A));
+		new ParallelPowerSort(1, 10, new ForkJoinPool(4)).sort(A);
+		System.out.println(Arrays.toString(A));
+	}
+}
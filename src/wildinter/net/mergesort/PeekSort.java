@@ -14,6 +14,8 @@ import static wildinter.net.mergesort.MergesAndRuns.*;
  * If onlyIncreasingRuns is true, we only find weakly increasing runs
  * while peeking into the middle. That simplifies run detection a bit,
  * but it does not detect descending runs.
+ * The merge buffer is taken lazily from the workspace, as large as the
+ * merger needs; with {@link Merger#COPY_HALF}, that is at most n/2.
  *
  * @author Sebastian Wild (wild@uwaterloo.ca)
  */
@@ -21,49 +23,135 @@ public class PeekSort implements Sorter {
 
 	private final int myInsertionsortThreshold;
 	private final boolean onlyIncreasingRuns;
+	private final Merger merger;
+	private final BaseCase baseCase;
+	private final boolean pingPong;
 
 	public PeekSort(final int insertionSortThreshold, final boolean onlyIncreasingRuns) {
+		this(insertionSortThreshold, onlyIncreasingRuns, Merger.BITONIC);
+	}
+
+	public PeekSort(final int insertionSortThreshold, final boolean onlyIncreasingRuns, final Merger merger) {
+		this(insertionSortThreshold, onlyIncreasingRuns, merger, BaseCase.INSERTIONSORT);
+	}
+
+	/** Peeksort that sorts subproblems of at most insertionSortThreshold elements with baseCase */
+	public PeekSort(final int insertionSortThreshold, final boolean onlyIncreasingRuns, final Merger merger,
+	                final BaseCase baseCase) {
+		this(insertionSortThreshold, onlyIncreasingRuns, merger, baseCase, false);
+	}
+
+	/** Peeksort that merges by {@link #peeksortPingPong} */
+	public static PeekSort pingPong(final int insertionSortThreshold) {
+		return new PeekSort(insertionSortThreshold, false, null, BaseCase.INSERTIONSORT, true);
+	}
+
+	private PeekSort(final int insertionSortThreshold, final boolean onlyIncreasingRuns, final Merger merger,
+	                 final BaseCase baseCase, final boolean pingPong) {
 		this.myInsertionsortThreshold = insertionSortThreshold;
 		this.onlyIncreasingRuns = onlyIncreasingRuns;
+		this.merger = merger;
+		this.baseCase = baseCase;
+		this.pingPong = pingPong;
 	}
 
 	@Override
 	public void sort(final int[] A, final int left, final int right) {
-		insertionSortThreshold = myInsertionsortThreshold;
-		if (onlyIncreasingRuns)
-			peeksortOnlyIncreasing(A, left, right);
+		sort(A, left, right, new SortWorkspace());
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+		if (pingPong)
+			peeksortPingPong(A, left, right, myInsertionsortThreshold, workspace);
+		else if (onlyIncreasingRuns)
+			peeksortOnlyIncreasing(A, left, right, myInsertionsortThreshold, merger, baseCase, workspace);
 		else
-			peeksort(A, left, right);
+			peeksort(A, left, right, myInsertionsortThreshold, merger, baseCase, workspace);
 	}
 
 	public static void peeksort(final int[] a, final int l, final int r) {
-		int n = r - l + 1;
-		peeksort(a, l, r, l, r, new int[n]);
+		peeksort(a, l, r, Merger.BITONIC);
+	}
+
+	public static void peeksort(final int[] a, final int l, final int r, final Merger merger) {
+		peeksort(a, l, r, DEFAULT_INSERTION_SORT_THRESHOLD, merger, new SortWorkspace());
+	}
+
+	public static void peeksort(final int[] a, final int l, final int r, final int insertionSortThreshold,
+	                            final Merger merger, final SortWorkspace workspace) {
+		peeksort(a, l, r, insertionSortThreshold, merger, BaseCase.INSERTIONSORT, workspace);
+	}
+
+	public static void peeksort(final int[] a, final int l, final int r, final int insertionSortThreshold,
+	                            final Merger merger, final BaseCase baseCase, final SortWorkspace workspace) {
+		peeksort(a, l, r, l, r, workspace, merger.maxBufferLength(l, r), insertionSortThreshold, merger, baseCase);
 	}
 
 	public static void peeksortOnlyIncreasing(final int[] a, final int l, final int r) {
-		int n = r - l + 1;
-		peeksortOnlyIncreasing(a, l, r, l, r, new int[n]);
+		peeksortOnlyIncreasing(a, l, r, Merger.BITONIC);
+	}
+
+	public static void peeksortOnlyIncreasing(final int[] a, final int l, final int r, final Merger merger) {
+		peeksortOnlyIncreasing(a, l, r, DEFAULT_INSERTION_SORT_THRESHOLD, merger, new SortWorkspace());
+	}
+
+	public static void peeksortOnlyIncreasing(final int[] a, final int l, final int r, final int insertionSortThreshold,
+	                                          final Merger merger, final SortWorkspace workspace) {
+		peeksortOnlyIncreasing(a, l, r, insertionSortThreshold, merger, BaseCase.INSERTIONSORT, workspace);
+	}
+
+	public static void peeksortOnlyIncreasing(final int[] a, final int l, final int r, final int insertionSortThreshold,
+	                                          final Merger merger, final BaseCase baseCase, final SortWorkspace workspace) {
+		peeksortOnlyIncreasing(a, l, r, l, r, workspace, merger.maxBufferLength(l, r), insertionSortThreshold, merger, baseCase);
 	}
 
-	private static int insertionSortThreshold = 10;
+	/** insertionSortThreshold used by the static methods without that parameter */
+	public static final int DEFAULT_INSERTION_SORT_THRESHOLD = 10;
 
 	public static void peeksort(int[] A, int left, int right, int leftRunEnd, int rightRunStart, final int[] B) {
+		peeksort(A, left, right, leftRunEnd, rightRunStart, B, DEFAULT_INSERTION_SORT_THRESHOLD, Merger.BITONIC);
+	}
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs, using B[left..right] as buffer for merger.
+	 */
+	public static void peeksort(int[] A, int left, int right, int leftRunEnd, int rightRunStart, final int[] B,
+	                            final int insertionSortThreshold, final Merger merger) {
+		peeksort(A, left, right, leftRunEnd, rightRunStart, SortWorkspace.wrap(B), B.length, insertionSortThreshold, merger);
+	}
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs, taking the buffer for merger lazily from the workspace
+	 * (growing it to at most maxBufferLength).
+	 */
+	public static void peeksort(int[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                            final SortWorkspace workspace, final int maxBufferLength,
+	                            final int insertionSortThreshold, final Merger merger) {
+		peeksort(A, left, right, leftRunEnd, rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger,
+				BaseCase.INSERTIONSORT);
+	}
+
+	public static void peeksort(int[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                            final SortWorkspace workspace, final int maxBufferLength,
+	                            final int insertionSortThreshold, final Merger merger, final BaseCase baseCase) {
 		if (leftRunEnd == right || rightRunStart == left) return;
 		if (right - left + 1 <= insertionSortThreshold) {
 			// Possible optimization: use insertionsortRight if right run longer.
-			Insertionsort.insertionsort(A, left, right, leftRunEnd - left + 1);
+			baseCase.sort(A, left, right, leftRunEnd - left + 1);
 			return;
 		}
 		int mid = left + ((right - left) >> 1);
 		if (mid <= leftRunEnd) {
 			// |XXXXXXXX|XX     X|
-			peeksort(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, B);
-			mergeRuns(A, left, leftRunEnd+1, right, B);
+			peeksort(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+			merger.merge(A, left, leftRunEnd+1, right, workspace, maxBufferLength);
 		} else if (mid >= rightRunStart) {
 			// |XX     X|XXXXXXXX|
-			peeksort(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B);
-			mergeRuns(A, left, rightRunStart, right, B);
+			peeksort(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+			merger.merge(A, left, rightRunStart, right, workspace, maxBufferLength);
 		} else {
 			// find middle run
 			final int i, j;
@@ -78,33 +166,51 @@ public class PeekSort implements Sorter {
 			if (i == left && j == right) return;
 			if (mid - i < j - mid) {
 				// |XX     x|xxxx   X|
-				peeksort(A, left, i-1, leftRunEnd, i-1, B);
-				peeksort(A, i, right, j, rightRunStart, B);
-				mergeRuns(A,left, i, right, B);
+				peeksort(A, left, i-1, leftRunEnd, i-1, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				peeksort(A, i, right, j, rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				merger.merge(A,left, i, right, workspace, maxBufferLength);
 			} else {
 				// |XX   xxx|x      X|
-				peeksort(A, left, j, leftRunEnd, i, B);
-				peeksort(A, j+1, right, j+1, rightRunStart, B);
-				mergeRuns(A,left, j+1, right, B);
+				peeksort(A, left, j, leftRunEnd, i, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				peeksort(A, j+1, right, j+1, rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				merger.merge(A,left, j+1, right, workspace, maxBufferLength);
 			}
 		}
 	}
 
 	public static void peeksortOnlyIncreasing(int[] A, int left, int right, int leftRunEnd, int rightRunStart, final int[] B) {
+		peeksortOnlyIncreasing(A, left, right, leftRunEnd, rightRunStart, B, DEFAULT_INSERTION_SORT_THRESHOLD, Merger.BITONIC);
+	}
+
+	public static void peeksortOnlyIncreasing(int[] A, int left, int right, int leftRunEnd, int rightRunStart, final int[] B,
+	                                          final int insertionSortThreshold, final Merger merger) {
+		peeksortOnlyIncreasing(A, left, right, leftRunEnd, rightRunStart, SortWorkspace.wrap(B), B.length, insertionSortThreshold, merger);
+	}
+
+	public static void peeksortOnlyIncreasing(int[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                                          final SortWorkspace workspace, final int maxBufferLength,
+	                                          final int insertionSortThreshold, final Merger merger) {
+		peeksortOnlyIncreasing(A, left, right, leftRunEnd, rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger,
+				BaseCase.INSERTIONSORT);
+	}
+
+	public static void peeksortOnlyIncreasing(int[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                                          final SortWorkspace workspace, final int maxBufferLength,
+	                                          final int insertionSortThreshold, final Merger merger, final BaseCase baseCase) {
 		if (leftRunEnd == right || rightRunStart == left) return;
 		if (right - left + 1 <= insertionSortThreshold) {
-			Insertionsort.insertionsort(A, left, right);
+			baseCase.sort(A, left, right, 1);
 			return;
 		}
 		int mid = left + ((right - left) >> 1);
 		if (mid <= leftRunEnd) {
 			// |XXXXXXXX|XX     X|
-			peeksortOnlyIncreasing(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, B);
-			mergeRuns(A, left, leftRunEnd+1, right, B);
+			peeksortOnlyIncreasing(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+			merger.merge(A, left, leftRunEnd+1, right, workspace, maxBufferLength);
 		} else if (mid >= rightRunStart) {
 			// |XX     X|XXXXXXXX|
-			peeksortOnlyIncreasing(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B);
-			mergeRuns(A, left, rightRunStart, right, B);
+			peeksortOnlyIncreasing(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+			merger.merge(A, left, rightRunStart, right, workspace, maxBufferLength);
 		} else {
 			// find middle run
 			int i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
@@ -112,14 +218,206 @@ public class PeekSort implements Sorter {
 			if (i == left && j == right) return;
 			if (mid - i < j - mid) {
 				// |XX     x|xxxx   X|
-				peeksortOnlyIncreasing(A, left, i-1, leftRunEnd, i-1, B);
-				peeksortOnlyIncreasing(A, i, right, j, rightRunStart, B);
-				mergeRuns(A,left, i, right, B);
+				peeksortOnlyIncreasing(A, left, i-1, leftRunEnd, i-1, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				peeksortOnlyIncreasing(A, i, right, j, rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				merger.merge(A,left, i, right, workspace, maxBufferLength);
+			} else {
+				// |XX   xxx|x      X|
+				peeksortOnlyIncreasing(A, left, j, leftRunEnd, i, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				peeksortOnlyIncreasing(A, j+1, right, j+1, rightRunStart, workspace, maxBufferLength, insertionSortThreshold, merger, baseCase);
+				merger.merge(A,left, j+1, right, workspace, maxBufferLength);
+			}
+		}
+	}
+
+	/**
+	 * Peeksort that merges by {@link MergesAndRuns#mergeRunsPingPong}:
+	 * each merge moves all elements once, from wherever its runs are
+	 * (A or buffer); the recursion reports where its result is.
+	 * If the final run ends up in the buffer, it is copied back.
+	 */
+	public static void peeksortPingPong(final int[] A, final int left, final int right,
+	                                    final int insertionSortThreshold, final SortWorkspace workspace) {
+		final int[] B = workspace.buffer(right + 1);
+		if (peeksortPingPong(A, left, right, left, right, B, insertionSortThreshold))
+			System.arraycopy(B, left, A, left, right - left + 1);
+	}
+
+	/**
+	 * Sorts A[left..right], where A[left..leftRunEnd] and A[rightRunStart..right]
+	 * are known to be runs, using B[left..right] for ping-pong merging.
+	 *
+	 * @return whether the sorted result is in B[left..right] (otherwise it is in A)
+	 */
+	public static boolean peeksortPingPong(int[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                                       final int[] B, final int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return false;
+		if (right - left + 1 <= insertionSortThreshold) {
+			Insertionsort.insertionsort(A, left, right, leftRunEnd - left + 1);
+			return false;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			boolean rightInB = peeksortPingPong(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, B, insertionSortThreshold);
+			return mergeRunsPingPong(A, B, left, leftRunEnd+1, right, false, rightInB);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			boolean leftInB = peeksortPingPong(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, B, insertionSortThreshold);
+			return mergeRunsPingPong(A, B, left, rightRunStart, right, leftInB, false);
+		} else {
+			// find middle run
+			final int i, j;
+			if (A[mid] <= A[mid+1]) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return false;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				boolean leftInB = peeksortPingPong(A, left, i-1, leftRunEnd, i-1, B, insertionSortThreshold);
+				boolean rightInB = peeksortPingPong(A, i, right, j, rightRunStart, B, insertionSortThreshold);
+				return mergeRunsPingPong(A, B, left, i, right, leftInB, rightInB);
+			} else {
+				// |XX   xxx|x      X|
+				boolean leftInB = peeksortPingPong(A, left, j, leftRunEnd, i, B, insertionSortThreshold);
+				boolean rightInB = peeksortPingPong(A, j+1, right, j+1, rightRunStart, B, insertionSortThreshold);
+				return mergeRunsPingPong(A, B, left, j+1, right, leftInB, rightInB);
+			}
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] stably and applies the same permutation to
+	 * payloads[c][left..right] for every payload column c
+	 * (struct-of-arrays sorting). Merges copy the shorter run, so the
+	 * buffers need at most n/2 elements per column.
+	 */
+	public static void peeksort(final int[] A, final int[][] payloads, final int left, final int right,
+	                            final int insertionSortThreshold, final SortWorkspace workspace) {
+		peeksort(A, payloads, NO_LONG_COLUMNS, left, right, left, right, workspace, (right - left + 1) >> 1, insertionSortThreshold);
+	}
+
+	/**
+	 * Like {@link #peeksort(int[], int[][], int, int, int, SortWorkspace)},
+	 * for long payload columns
+	 */
+	public static void peeksort(final int[] A, final long[][] payloads, final int left, final int right,
+	                            final int insertionSortThreshold, final SortWorkspace workspace) {
+		peeksort(A, NO_INT_COLUMNS, payloads, left, right, left, right, workspace, (right - left + 1) >> 1, insertionSortThreshold);
+	}
+
+	/**
+	 * Sorts A[left..right] and the int and long payload columns along,
+	 * where A[left..leftRunEnd] and A[rightRunStart..right] are known to be runs.
+	 */
+	public static void peeksort(int[] A, int[][] payloads, long[][] longPayloads,
+	                            int left, int right, int leftRunEnd, int rightRunStart,
+	                            final SortWorkspace workspace, final int maxBufferLength,
+	                            final int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			Insertionsort.insertionsort(A, payloads, longPayloads, left, right, leftRunEnd - left + 1);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksort(A, payloads, longPayloads, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, workspace, maxBufferLength, insertionSortThreshold);
+			mergeRuns(A, payloads, longPayloads, left, leftRunEnd+1, right, workspace, maxBufferLength);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksort(A, payloads, longPayloads, left, rightRunStart-1, leftRunEnd, rightRunStart-1, workspace, maxBufferLength, insertionSortThreshold);
+			mergeRuns(A, payloads, longPayloads, left, rightRunStart, right, workspace, maxBufferLength);
+		} else {
+			// find middle run
+			final int i, j;
+			if (A[mid] <= A[mid+1]) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1);
+				reverseRange(A, payloads, longPayloads, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksort(A, payloads, longPayloads, left, i-1, leftRunEnd, i-1, workspace, maxBufferLength, insertionSortThreshold);
+				peeksort(A, payloads, longPayloads, i, right, j, rightRunStart, workspace, maxBufferLength, insertionSortThreshold);
+				mergeRuns(A, payloads, longPayloads, left, i, right, workspace, maxBufferLength);
+			} else {
+				// |XX   xxx|x      X|
+				peeksort(A, payloads, longPayloads, left, j, leftRunEnd, i, workspace, maxBufferLength, insertionSortThreshold);
+				peeksort(A, payloads, longPayloads, j+1, right, j+1, rightRunStart, workspace, maxBufferLength, insertionSortThreshold);
+				mergeRuns(A, payloads, longPayloads, left, j+1, right, workspace, maxBufferLength);
+			}
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] by c with peeksort, flipping bits for the
+	 * constants of {@link IntComparator} as
+	 * {@link PowerSort#powersort(int[], int, int, int, IntComparator, SortWorkspace)}.
+	 */
+	public static void peeksort(int[] A, int left, int right, int insertionSortThreshold, IntComparator c, SortWorkspace workspace) {
+		if (right <= left) return;
+		int mask = xorOrderMask(c);
+		if (mask != NO_XOR_ORDER) {
+			if (mask != 0) xorRange(A, left, right, mask);
+			peeksort(A, left, right, insertionSortThreshold, Merger.BITONIC, workspace);
+			if (mask != 0) xorRange(A, left, right, mask);
+			return;
+		}
+		peeksort(A, left, right, left, right, c, workspace, (right - left + 1) >> 1, insertionSortThreshold);
+	}
+
+	/**
+	 * Sorts A[left..right] by c, where A[left..leftRunEnd] and
+	 * A[rightRunStart..right] are known to be runs.
+	 */
+	private static void peeksort(int[] A, int left, int right, int leftRunEnd, int rightRunStart,
+	                             IntComparator c, SortWorkspace workspace, int maxBufferLength, int insertionSortThreshold) {
+		if (leftRunEnd == right || rightRunStart == left) return;
+		if (right - left + 1 <= insertionSortThreshold) {
+			Insertionsort.insertionsort(A, left, right, leftRunEnd - left + 1, c);
+			return;
+		}
+		int mid = left + ((right - left) >> 1);
+		if (mid <= leftRunEnd) {
+			// |XXXXXXXX|XX     X|
+			peeksort(A, leftRunEnd+1, right, leftRunEnd+1,rightRunStart, c, workspace, maxBufferLength, insertionSortThreshold);
+			mergeRuns(A, left, leftRunEnd+1, right, c, workspace, maxBufferLength);
+		} else if (mid >= rightRunStart) {
+			// |XX     X|XXXXXXXX|
+			peeksort(A, left, rightRunStart-1, leftRunEnd, rightRunStart-1, c, workspace, maxBufferLength, insertionSortThreshold);
+			mergeRuns(A, left, rightRunStart, right, c, workspace, maxBufferLength);
+		} else {
+			// find middle run
+			final int i, j;
+			if (c.compare(A[mid], A[mid+1]) <= 0) {
+				i = extendWeaklyIncreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1, c);
+				j = mid+1 == rightRunStart ? mid : extendWeaklyIncreasingRunRight(A, mid+1, right == rightRunStart ? right : rightRunStart-1, c);
+			} else {
+				i = extendStrictlyDecreasingRunLeft(A, mid, left == leftRunEnd ? left : leftRunEnd+1, c);
+				j = mid+1 == rightRunStart ? mid : extendStrictlyDecreasingRunRight(A, mid+1,right == rightRunStart ? right : rightRunStart-1, c);
+				reverseRange(A, i, j);
+			}
+			if (i == left && j == right) return;
+			if (mid - i < j - mid) {
+				// |XX     x|xxxx   X|
+				peeksort(A, left, i-1, leftRunEnd, i-1, c, workspace, maxBufferLength, insertionSortThreshold);
+				peeksort(A, i, right, j, rightRunStart, c, workspace, maxBufferLength, insertionSortThreshold);
+				mergeRuns(A, left, i, right, c, workspace, maxBufferLength);
 			} else {
 				// |XX   xxx|x      X|
-				peeksortOnlyIncreasing(A, left, j, leftRunEnd, i, B);
-				peeksortOnlyIncreasing(A, j+1, right, j+1, rightRunStart, B);
-				mergeRuns(A,left, j+1, right, B);
+				peeksort(A, left, j, leftRunEnd, i, c, workspace, maxBufferLength, insertionSortThreshold);
+				peeksort(A, j+1, right, j+1, rightRunStart, c, workspace, maxBufferLength, insertionSortThreshold);
+				mergeRuns(A, left, j+1, right, c, workspace, maxBufferLength);
 			}
 		}
 	}
@@ -128,8 +426,7 @@ public class PeekSort implements Sorter {
 		int[] A = Inputs.randomPermutation(30, new Random());
 		A = new int[] {2, 5, 8, 4, 3, 10, 12, 13, 11, 6, 7, 1, 9};
 		System.out.println(Arrays.toString(A));
-		insertionSortThreshold = 1;
-		peeksort(A, 0, A.length-1);
+		peeksort(A, 0, A.length-1, 1, Merger.BITONIC, new SortWorkspace());
 
 //		System.exit(1);
 
@@ -139,6 +436,8 @@ public class PeekSort implements Sorter {
 	public String toString() {
 		return getClass().getSimpleName()
 				+ "+iscutoff=" + myInsertionsortThreshold
-				+ "+onlyIncRuns=" + onlyIncreasingRuns;
+				+ "+onlyIncRuns=" + onlyIncreasingRuns
+				+ (pingPong ? "+pingpong" : merger == Merger.BITONIC ? "" : "+merger=" + merger)
+				+ (baseCase == BaseCase.INSERTIONSORT ? "" : "+base=" + baseCase);
 	}
 }
@@ -6,6 +6,7 @@ import java.util.Random;
 import static wildinter.net.mergesort.MergesAndRuns.extendAndReverseRunRight;
 import static wildinter.net.mergesort.MergesAndRuns.extendWeaklyIncreasingRunRight;
 import static wildinter.net.mergesort.MergesAndRuns.mergeRuns;
+import static wildinter.net.mergesort.MergesAndRuns.mergeRunsPingPong;
 
 /**
  * Powersort implementation as described in the paper.
@@ -16,6 +17,8 @@ import static wildinter.net.mergesort.MergesAndRuns.mergeRuns;
  * a most-significant-bit trick;
  * otherwise a loop is used.
  * If onlyIncreasingRuns is true, only weakly increasing runs are picked up.
+ * The merge buffer is taken lazily from the workspace, as large as the
+ * merger needs; with {@link Merger#COPY_HALF}, that is at most n/2.
  *
  * @author Sebastian Wild (wild@uwaterloo.ca)
  */
@@ -24,10 +27,34 @@ public class PowerSort implements Sorter {
 	private final boolean useMsbMergeType;
 	private final boolean onlyIncreasingRuns;
 	private final int myMinRunLen;
+	private final Merger merger;
+	private final BaseCase baseCase;
+	private final boolean pingPong;
 
-	private static int minRunLen = 16;
+	/** minRunLen used by the static methods without that parameter */
+	public static final int DEFAULT_MIN_RUN_LEN = 16;
 
 	public PowerSort(final boolean useMsbMergeType, final boolean onlyIncreasingRuns, final int minRunLen) {
+		this(useMsbMergeType, onlyIncreasingRuns, minRunLen, Merger.BITONIC);
+	}
+
+	public PowerSort(final boolean useMsbMergeType, final boolean onlyIncreasingRuns, final int minRunLen, final Merger merger) {
+		this(useMsbMergeType, onlyIncreasingRuns, minRunLen, merger, BaseCase.INSERTIONSORT);
+	}
+
+	/** Powersort that extends short runs to minRunLen with baseCase */
+	public PowerSort(final boolean useMsbMergeType, final boolean onlyIncreasingRuns, final int minRunLen,
+	                 final Merger merger, final BaseCase baseCase) {
+		this(useMsbMergeType, onlyIncreasingRuns, minRunLen, merger, baseCase, false);
+	}
+
+	/** Powersort with MSB node powers that merges by {@link #powersortPingPong} */
+	public static PowerSort pingPong(final int minRunLen) {
+		return new PowerSort(true, false, minRunLen, null, BaseCase.INSERTIONSORT, true);
+	}
+
+	private PowerSort(final boolean useMsbMergeType, final boolean onlyIncreasingRuns, final int minRunLen,
+	                  final Merger merger, final BaseCase baseCase, final boolean pingPong) {
 		if (!useMsbMergeType && onlyIncreasingRuns)
 			throw new UnsupportedOperationException();
 		if (minRunLen > 1 && (!useMsbMergeType || onlyIncreasingRuns))
@@ -35,22 +62,31 @@ public class PowerSort implements Sorter {
 		this.useMsbMergeType = useMsbMergeType;
 		this.onlyIncreasingRuns = onlyIncreasingRuns;
 		this.myMinRunLen = minRunLen;
+		this.merger = merger;
+		this.baseCase = baseCase;
+		this.pingPong = pingPong;
 	}
 
 	@Override
 	public void sort(final int[] A, final int left, final int right) {
-		minRunLen = myMinRunLen;
-		if (useMsbMergeType) {
+		sort(A, left, right, new SortWorkspace());
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+		if (pingPong) {
+			powersortPingPong(A, left, right, myMinRunLen, workspace);
+		} else if (useMsbMergeType) {
 			if (onlyIncreasingRuns)
-				powersortIncreasingOnlyMSB(A, left, right);
+				powersortIncreasingOnlyMSB(A, left, right, merger, workspace);
 			else
-				powersort(A, left, right);
+				powersort(A, left, right, myMinRunLen, merger, baseCase, workspace);
 		} else {
-			powersortBitWise(A, left, right);
+			powersortBitWise(A, left, right, merger, workspace);
 		}
 	}
 
-	private static int nodePower(int left, int right, int startA, int startB, int endB) {
+	static int nodePower(int left, int right, int startA, int startB, int endB) {
 		int n = (right - left + 1);
 		long l = (long) startA + (long) startB - ((long) left << 1); // 2*middleA
 		long r = (long) startB + (long) endB + 1 - ((long) left << 1); // 2*middleB
@@ -95,22 +131,36 @@ public class PowerSort implements Sorter {
 	}
 
 
-	private static int NULL_INDEX = Integer.MIN_VALUE;
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
 
 	public static void powersort(int[] A, int left, int right) {
+		powersort(A, left, right, Merger.BITONIC);
+	}
+
+	public static void powersort(int[] A, int left, int right, Merger merger) {
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN, merger, new SortWorkspace());
+	}
+
+	public static void powersort(int[] A, int left, int right, int minRunLen, Merger merger, SortWorkspace workspace) {
+		powersort(A, left, right, minRunLen, merger, BaseCase.INSERTIONSORT, workspace);
+	}
+
+	/** Powersort that extends runs shorter than minRunLen with baseCase */
+	public static void powersort(int[] A, int left, int right, int minRunLen, Merger merger, BaseCase baseCase,
+	                             SortWorkspace workspace) {
 		int n = right - left + 1;
 		int lgnPlus2 = log2(n) + 2;
-		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
-		Arrays.fill(leftRunStart,NULL_INDEX);
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
 		int top = 0;
-		int[] buffer = new int[n];
+		int maxBufferLength = merger.maxBufferLength(left, right); // buffer is allocated lazily
 
 		int startA = left, endA = extendAndReverseRunRight(A, startA, right);
 		// extend to minRunLen
 		int lenA = endA - startA + 1;
 		if (lenA < minRunLen) {
 			endA = Math.min(right, startA + minRunLen-1);
-			Insertionsort.insertionsort(A, startA, endA, lenA);
+			baseCase.sort(A, startA, endA, lenA);
 		}
 		while (endA < right) {
 			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right);
@@ -118,13 +168,13 @@ public class PowerSort implements Sorter {
 			int lenB = endB - startB + 1;
 			if (lenB < minRunLen) {
 				endB = Math.min(right, startB + minRunLen-1);
-				Insertionsort.insertionsort(A, startB, endB, lenB);
+				baseCase.sort(A, startB, endB, lenB);
 			}
 			int k = nodePower(left, right, startA, startB, endB);
 			assert k != top;
 			for (int l = top; l > k; --l) {
 				if (leftRunStart[l] == NULL_INDEX) continue;
-				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, buffer);
+				merger.merge(A, leftRunStart[l], leftRunEnd[l]+1, endA, workspace, maxBufferLength);
 				startA = leftRunStart[l];
 				leftRunStart[l] = NULL_INDEX;
 			}
@@ -136,17 +186,25 @@ public class PowerSort implements Sorter {
 		assert endA == right;
 		for (int l = top; l > 0; --l) {
 			if (leftRunStart[l] == NULL_INDEX) continue;
-			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, buffer);
+			merger.merge(A, leftRunStart[l], leftRunEnd[l]+1, right, workspace, maxBufferLength);
 		}
 	}
 
 	public static void powersortBitWise(int[] A, int left, int right) {
+		powersortBitWise(A, left, right, Merger.BITONIC);
+	}
+
+	public static void powersortBitWise(int[] A, int left, int right, Merger merger) {
+		powersortBitWise(A, left, right, merger, new SortWorkspace());
+	}
+
+	public static void powersortBitWise(int[] A, int left, int right, Merger merger, SortWorkspace workspace) {
 		int n = right - left + 1;
 		int lgnPlus2 = log2(n) + 2;
-		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
-		Arrays.fill(leftRunStart,NULL_INDEX);
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
 		int top = 0;
-		int[] buffer = new int[n];
+		int maxBufferLength = merger.maxBufferLength(left, right); // buffer is allocated lazily
 
 		int startA = left, endA = extendAndReverseRunRight(A, startA, right);
 		while (endA < right) {
@@ -156,7 +214,7 @@ public class PowerSort implements Sorter {
 			// clear left subtree bottom-up if needed
 			for (int l = top; l > k; --l) {
 				if (leftRunStart[l] == NULL_INDEX) continue;
-				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, buffer);
+				merger.merge(A, leftRunStart[l], leftRunEnd[l]+1, endA, workspace, maxBufferLength);
 				startA = leftRunStart[l];
 				leftRunStart[l] = NULL_INDEX;
 			}
@@ -168,17 +226,25 @@ public class PowerSort implements Sorter {
 		assert endA == right;
 		for (int l = top; l > 0; --l) {
 			if (leftRunStart[l] == NULL_INDEX) continue;
-			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, buffer);
+			merger.merge(A, leftRunStart[l], leftRunEnd[l]+1, right, workspace, maxBufferLength);
 		}
 	}
 
 	public static void powersortIncreasingOnlyMSB(int[] A, int left, int right) {
+		powersortIncreasingOnlyMSB(A, left, right, Merger.BITONIC);
+	}
+
+	public static void powersortIncreasingOnlyMSB(int[] A, int left, int right, Merger merger) {
+		powersortIncreasingOnlyMSB(A, left, right, merger, new SortWorkspace());
+	}
+
+	public static void powersortIncreasingOnlyMSB(int[] A, int left, int right, Merger merger, SortWorkspace workspace) {
 		int n = right - left + 1;
 		int lgnPlus2 = log2(n) + 2;
-		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
-		Arrays.fill(leftRunStart,NULL_INDEX);
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
 		int top = 0;
-		int[] buffer = new int[n];
+		int maxBufferLength = merger.maxBufferLength(left, right); // buffer is allocated lazily
 
 		int startA = left, endA = extendWeaklyIncreasingRunRight(A, startA, right);
 		while (endA < right) {
@@ -188,7 +254,7 @@ public class PowerSort implements Sorter {
 			// clear left subtree bottom-up if needed
 			for (int l = top; l > k; --l) {
 				if (leftRunStart[l] == NULL_INDEX) continue;
-				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, buffer);
+				merger.merge(A, leftRunStart[l], leftRunEnd[l]+1, endA, workspace, maxBufferLength);
 				startA = leftRunStart[l];
 				leftRunStart[l] = NULL_INDEX;
 			}
@@ -200,10 +266,191 @@ public class PowerSort implements Sorter {
 		assert endA == right;
 		for (int l = top; l > 0; --l) {
 			if (leftRunStart[l] == NULL_INDEX) continue;
-			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, buffer);
+			merger.merge(A, leftRunStart[l], leftRunEnd[l]+1, right, workspace, maxBufferLength);
+		}
+	}
+
+	/**
+	 * Powersort that merges by {@link MergesAndRuns#mergeRunsPingPong}:
+	 * instead of copying runs to the buffer and merging back, each merge
+	 * moves all elements once, from wherever its runs currently are,
+	 * and we remember for each run on the stack whether it is in A or in
+	 * the buffer. If the final run ends up in the buffer, it is copied back.
+	 */
+	public static void powersortPingPong(int[] A, int left, int right, int minRunLen, SortWorkspace workspace) {
+		int n = right - left + 1;
+		int lgnPlus2 = log2(n) + 2;
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
+		long leftRunInB = 0; // bit l is set iff the run stored at leftRunStart[l] is in buffer
+		int top = 0;
+		int[] buffer = workspace.buffer(right + 1);
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right);
+		boolean aInB = false;
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			Insertionsort.insertionsort(A, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				Insertionsort.insertionsort(A, startB, endB, lenB);
+			}
+			int k = nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				aInB = mergeRunsPingPong(A, buffer, leftRunStart[l], leftRunEnd[l]+1, endA,
+						(leftRunInB & (1L << l)) != 0, aInB);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			leftRunInB = aInB ? leftRunInB | (1L << k) : leftRunInB & ~(1L << k);
+			top = k;
+			startA = startB; endA = endB; aInB = false;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			aInB = mergeRunsPingPong(A, buffer, leftRunStart[l], leftRunEnd[l]+1, right,
+					(leftRunInB & (1L << l)) != 0, aInB);
 		}
+		if (aInB) System.arraycopy(buffer, left, A, left, n);
+	}
+
+	/**
+	 * Sorts A[left..right] stably and applies the same permutation to
+	 * payloads[c][left..right] for every payload column c
+	 * (struct-of-arrays sorting). Merges copy the shorter run, so the
+	 * buffers need at most n/2 elements per column.
+	 */
+	public static void powersort(int[] A, int[][] payloads, int left, int right, int minRunLen, SortWorkspace workspace) {
+		powersort(A, payloads, MergesAndRuns.NO_LONG_COLUMNS, left, right, minRunLen, workspace);
 	}
 
+	/**
+	 * Like {@link #powersort(int[], int[][], int, int, int, SortWorkspace)},
+	 * for long payload columns
+	 */
+	public static void powersort(int[] A, long[][] payloads, int left, int right, int minRunLen, SortWorkspace workspace) {
+		powersort(A, MergesAndRuns.NO_INT_COLUMNS, payloads, left, right, minRunLen, workspace);
+	}
+
+	/**
+	 * Like {@link #powersort(int[], int[][], int, int, int, SortWorkspace)},
+	 * moving both the int columns payloads[c] and the long columns
+	 * longPayloads[c] along with A in the same pass
+	 */
+	public static void powersort(int[] A, int[][] payloads, long[][] longPayloads,
+	                             int left, int right, int minRunLen, SortWorkspace workspace) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int lgnPlus2 = log2(n) + 2;
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
+		int top = 0;
+		int maxBufferLength = n >> 1; // buffers are allocated lazily
+
+		int startA = left, endA = extendAndReverseRunRight(A, payloads, longPayloads, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			Insertionsort.insertionsort(A, payloads, longPayloads, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, payloads, longPayloads, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				Insertionsort.insertionsort(A, payloads, longPayloads, startB, endB, lenB);
+			}
+			int k = nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, payloads, longPayloads, leftRunStart[l], leftRunEnd[l]+1, endA, workspace, maxBufferLength);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, payloads, longPayloads, leftRunStart[l], leftRunEnd[l]+1, right, workspace, maxBufferLength);
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] by c with powersort. For the constants of
+	 * {@link IntComparator}, this flips bits to map c to the natural order
+	 * (see {@link MergesAndRuns#xorOrderMask}) and sorts without calling c;
+	 * otherwise, runs are merged stably with
+	 * {@link MergesAndRuns#mergeRuns(int[], int, int, int, IntComparator, int[])}.
+	 */
+	public static void powersort(int[] A, int left, int right, int minRunLen, IntComparator c, SortWorkspace workspace) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int mask = MergesAndRuns.xorOrderMask(c);
+		if (mask != MergesAndRuns.NO_XOR_ORDER) {
+			if (mask != 0) MergesAndRuns.xorRange(A, left, right, mask);
+			powersort(A, left, right, minRunLen, Merger.BITONIC, workspace);
+			if (mask != 0) MergesAndRuns.xorRange(A, left, right, mask);
+			return;
+		}
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = workspace.starts(lgnPlus2), leftRunEnd = workspace.ends(lgnPlus2);
+		Arrays.fill(leftRunStart, 0, lgnPlus2, NULL_INDEX);
+		int top = 0;
+		int maxBufferLength = n >> 1; // buffer is allocated lazily
+
+		int startA = left, endA = MergesAndRuns.extendAndReverseRunRight(A, startA, right, c);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			Insertionsort.insertionsort(A, startA, endA, lenA, c);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = MergesAndRuns.extendAndReverseRunRight(A, startB, right, c);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				Insertionsort.insertionsort(A, startB, endB, lenB, c);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				MergesAndRuns.mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, c, workspace, maxBufferLength);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			MergesAndRuns.mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, c, workspace, maxBufferLength);
+		}
+	}
 
 	public static int log2(int n) {
 	    if(n == 0) throw new IllegalArgumentException("lg(0) undefined");
@@ -215,7 +462,9 @@ public class PowerSort implements Sorter {
 		return getClass().getSimpleName()
 				+"+minRunLen=" + myMinRunLen
 				+ "+msb=" + useMsbMergeType
-				+ "+onlyIncRuns=" + onlyIncreasingRuns;
+				+ "+onlyIncRuns=" + onlyIncreasingRuns
+				+ (pingPong ? "+pingpong" : merger == Merger.BITONIC ? "" : "+merger=" + merger)
+				+ (baseCase == BaseCase.INSERTIONSORT ? "" : "+base=" + baseCase);
 	}
 
 	public static void main(String[] args) {
@@ -254,8 +503,7 @@ public class PowerSort implements Sorter {
 		int[] A = new int[2*(5+3+3+14+1+2)];
 		Inputs.fillWithUpAndDownRuns(A, Arrays.asList(5, 3, 3, 14, 1, 2),2,new Random());
 		System.out.println(java.util.Arrays.toString(A));
-		minRunLen = 1;
-		powersort(A, 0, A.length-1);
+		powersort(A, 0, A.length-1, 1, Merger.BITONIC, new SortWorkspace());
 		System.out.println(java.util.Arrays.toString(A));
 
 	}
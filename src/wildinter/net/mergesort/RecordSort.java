@@ -0,0 +1,234 @@
+package wildinter.net.mergesort;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Powersort for fixed-width binary records in a {@link ByteBuffer}
+ * (e.g., a direct or memory-mapped one), ordered by an integer key field
+ * embedded in each record, so records need not be deserialized.
+ *
+ * The key has keyWidth (1, 2, 4 or 8) bytes at keyOffset within each
+ * record, is read in the buffer's byte order, and is compared as signed
+ * or unsigned number. Whole records are moved: runs with bulk copies,
+ * single records eight bytes at a time. The sort is stable.
+ *
+ * {@link #sort(ByteBuffer)} sorts the complete records between position
+ * and limit; otherwise record indices count from the start of the buffer,
+ * and all records must end before the limit. Merges copy the shorter run to the merge buffer and merge
+ * back, so it needs room for (right-left+1)/2 records (at least one);
+ * see {@link #allocateBuffer}.
+ */
+public class RecordSort {
+
+	/** runs shorter than this are extended by insertion sort */
+	public static final int DEFAULT_MIN_RUN_LEN = 8;
+
+	private final int recordSize, keyOffset, keyWidth;
+	private final boolean signed;
+
+	public RecordSort(final int recordSize, final int keyOffset, final int keyWidth, final boolean signed) {
+		if (keyWidth != 1 && keyWidth != 2 && keyWidth != 4 && keyWidth != 8)
+			throw new IllegalArgumentException("key width must be 1, 2, 4 or 8 bytes: " + keyWidth);
+		if (keyOffset < 0 || keyOffset + keyWidth > recordSize)
+			throw new IllegalArgumentException("key does not fit into record");
+		this.recordSize = recordSize;
+		this.keyOffset = keyOffset;
+		this.keyWidth = keyWidth;
+		this.signed = signed;
+	}
+
+	/**
+	 * Sorts the complete records in the remaining bytes of records
+	 * (remaining() / recordSize many, starting at position)
+	 */
+	public void sort(final ByteBuffer records) {
+		int n = records.remaining() / recordSize;
+		if (n < 2) return;
+		sort(records.slice().order(records.order()), 0, n - 1, allocateBuffer(n >> 1));
+	}
+
+	/** returns a direct buffer for n records (at least one) in native byte order */
+	public ByteBuffer allocateBuffer(final int n) {
+		return ByteBuffer.allocateDirect(Math.max(n, 1) * recordSize).order(ByteOrder.nativeOrder());
+	}
+
+	/** Sorts the records with indices left..right (inclusive) by powersort */
+	public void sort(final ByteBuffer records, final int left, final int right, final ByteBuffer buffer) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		final ByteBuffer A = records, B = wholeBuffer(buffer).order(records.order());
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, startA, right, B);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < DEFAULT_MIN_RUN_LEN) {
+			endA = Math.min(right, startA + DEFAULT_MIN_RUN_LEN-1);
+			insertionsort(A, startA, endA, lenA, B);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, startB, right, B);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < DEFAULT_MIN_RUN_LEN) {
+				endB = Math.min(right, startB + DEFAULT_MIN_RUN_LEN-1);
+				insertionsort(A, startB, endB, lenB, B);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, endA, B);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, leftRunStart[l], leftRunEnd[l]+1, right, B);
+		}
+	}
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	/**
+	 * a view of the merge buffer buf from 0 to its capacity, so that
+	 * its position and limit do not matter
+	 */
+	private static ByteBuffer wholeBuffer(final ByteBuffer buf) {
+		final ByteBuffer whole = buf.duplicate().order(buf.order());
+		whole.clear();
+		return whole;
+	}
+
+	/** the key of record i, as a long whose signed order is the key order */
+	long key(final ByteBuffer buf, final int i) {
+		final int pos = i * recordSize + keyOffset;
+		switch (keyWidth) {
+			case 1: { byte k = buf.get(pos); return signed ? k : k & 0xFF; }
+			case 2: { short k = buf.getShort(pos); return signed ? k : k & 0xFFFF; }
+			case 4: { int k = buf.getInt(pos); return signed ? k : k & 0xFFFFFFFFL; }
+			default: { long k = buf.getLong(pos); return signed ? k : k ^ Long.MIN_VALUE; }
+		}
+	}
+
+	/** Copies record i of from to record j of to (both must have the same byte order) */
+	private void moveRecord(final ByteBuffer from, final int i, final ByteBuffer to, final int j) {
+		int src = i * recordSize, dst = j * recordSize, end = src + recordSize;
+		for (; src + 8 <= end; src += 8, dst += 8) to.putLong(dst, from.getLong(src));
+		for (; src < end; ++src, ++dst) to.put(dst, from.get(src));
+	}
+
+	/** Copies records from[i..i+count-1] to to[j..] with a bulk put */
+	private void moveRecords(final ByteBuffer from, final int i, final ByteBuffer to, final int j, final int count) {
+		ByteBuffer src = from.duplicate(), dst = to.duplicate();
+		src.limit((i + count) * recordSize);
+		src.position(i * recordSize);
+		dst.position(j * recordSize);
+		dst.put(src);
+	}
+
+	/**
+	 * Merges runs A[l..m-1] and A[m..r] (record indices) stably by copying
+	 * the shorter run to B[0..] and merging back.
+	 */
+	void mergeRuns(final ByteBuffer A, final int l, final int m, final int r, final ByteBuffer B) {
+		int n1 = m-l, n2 = r-m+1;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(n1+n2);
+		if (n1 <= n2) {
+			moveRecords(A, l, B, 0, n1);
+			int i1 = 0, i2 = m, o = l;
+			long x = key(B, i1), y = key(A, i2);
+			while (true) {
+				if (x <= y) {
+					moveRecord(B, i1++, A, o++);
+					if (i1 == n1) return;
+					x = key(B, i1);
+				} else {
+					moveRecord(A, i2++, A, o++);
+					if (i2 > r) break;
+					y = key(A, i2);
+				}
+			}
+			moveRecords(B, i1, A, o, n1 - i1);
+		} else {
+			moveRecords(A, m, B, 0, n2);
+			int i1 = m-1, i2 = n2-1, o = r;
+			long x = key(A, i1), y = key(B, i2);
+			while (true) {
+				if (x <= y) {
+					moveRecord(B, i2--, A, o--);
+					if (i2 < 0) return;
+					y = key(B, i2);
+				} else {
+					moveRecord(A, i1--, A, o--);
+					if (i1 < l) break;
+					x = key(A, i1);
+				}
+			}
+			moveRecords(B, 0, A, l, i2 + 1);
+		}
+	}
+
+	/**
+	 * Sorts records A[left..right] by straight-insertion sort, assuming the
+	 * leftmost nPresorted records form a weakly increasing run;
+	 * uses record 0 of B as temporary storage.
+	 */
+	void insertionsort(final ByteBuffer A, final int left, final int right, final int nPresorted, final ByteBuffer B) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			final long v = key(A, i);
+			if (v >= key(A, i-1)) continue;
+			moveRecord(A, i, B, 0);
+			int j = i - 1;
+			do {
+				moveRecord(A, j, A, j+1);
+				--j;
+			} while (j >= left && v < key(A, j));
+			moveRecord(B, 0, A, j+1);
+		}
+	}
+
+	/** Reverses the order of records A[lo..hi], using record 0 of B as temporary storage */
+	void reverseRange(final ByteBuffer A, int lo, int hi, final ByteBuffer B) {
+		while (lo < hi) {
+			moveRecord(A, lo, B, 0);
+			moveRecord(A, hi, A, lo++);
+			moveRecord(B, 0, A, hi--);
+		}
+	}
+
+	/**
+	 * Finds the run starting at record i and ending at most at record right,
+	 * reversing it if it is strictly descending; returns the end of the run.
+	 */
+	int extendAndReverseRunRight(final ByteBuffer A, final int i, final int right, final ByteBuffer B) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		// Find end of run, and reverse range if descending
+		if (key(A, j) > key(A, ++j)) { // Strictly Descending
+			while (j < right && key(A, j+1) < key(A, j)) ++j;
+			reverseRange(A, i, j, B);
+		} else { // Weakly Ascending
+			while (j < right && key(A, j+1) >= key(A, j)) ++j;
+		}
+		return j;
+	}
+
+	@Override
+	public String toString() {
+		return "RecordSort+size=" + recordSize + "+key@" + keyOffset + "/" + keyWidth
+				+ (signed ? "+signed" : "+unsigned");
+	}
+}
@@ -0,0 +1,116 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * Caller-owned temporary storage for the sorting methods:
+ * a merge buffer and two int stacks for pending runs, and buffers for
+ * payload (or index) columns that are merged along with the keys.
+ *
+ * All arrays grow on demand (and never shrink), so sorting repeatedly
+ * with the same workspace allocates nothing once the workspace has
+ * reached the size needed for the largest input.
+ * The returned arrays may be longer than requested and contain garbage.
+ *
+ * A workspace must not be used by two sorts at the same time;
+ * use one workspace per thread.
+ */
+public class SortWorkspace {
+
+	private static final int[] EMPTY = new int[0];
+	private static final long[] EMPTY_LONG = new long[0];
+
+	private int[] buffer = EMPTY;
+	private int[] starts = EMPTY;
+	private int[] ends = EMPTY;
+	private int[][] payloadBuffers = new int[0][];
+	private long[][] longPayloadBuffers = new long[0][];
+
+	public SortWorkspace() {
+	}
+
+	/** Creates a workspace with a buffer for sorting arrays of length up to n */
+	public SortWorkspace(int n) {
+		buffer = new int[n];
+	}
+
+	/** Creates a workspace that uses the given array as (initial) merge buffer */
+	public static SortWorkspace wrap(int[] buffer) {
+		SortWorkspace workspace = new SortWorkspace();
+		workspace.buffer = buffer;
+		return workspace;
+	}
+
+	/** returns the merge buffer, with at least the given length */
+	public int[] buffer(int minLength) {
+		if (buffer.length < minLength) buffer = new int[grow(buffer.length, minLength)];
+		return buffer;
+	}
+
+	/**
+	 * returns the merge buffer, with at least the given length;
+	 * if it has to grow, it grows to max(minLength, maxLength) right away,
+	 * so that later inputs of the same size never need a larger buffer.
+	 */
+	public int[] buffer(int minLength, int maxLength) {
+		if (buffer.length < minLength)
+			buffer = new int[Math.max(minLength, maxLength)];
+		return buffer;
+	}
+
+	/**
+	 * returns buffers for (at least) the given number of payload columns,
+	 * each with at least the given length;
+	 * if one has to grow, it grows to max(minLength, maxLength) right away.
+	 */
+	public int[][] payloadBuffers(int columns, int minLength, int maxLength) {
+		if (payloadBuffers.length < columns) {
+			int old = payloadBuffers.length;
+			payloadBuffers = Arrays.copyOf(payloadBuffers, columns);
+			Arrays.fill(payloadBuffers, old, columns, EMPTY);
+		}
+		for (int c = 0; c < columns; ++c)
+			if (payloadBuffers[c].length < minLength)
+				payloadBuffers[c] = new int[Math.max(minLength, maxLength)];
+		return payloadBuffers;
+	}
+
+	/** Like {@link #payloadBuffers}, for long payload columns */
+	public long[][] longPayloadBuffers(int columns, int minLength, int maxLength) {
+		if (longPayloadBuffers.length < columns) {
+			int old = longPayloadBuffers.length;
+			longPayloadBuffers = Arrays.copyOf(longPayloadBuffers, columns);
+			Arrays.fill(longPayloadBuffers, old, columns, EMPTY_LONG);
+		}
+		for (int c = 0; c < columns; ++c)
+			if (longPayloadBuffers[c].length < minLength)
+				longPayloadBuffers[c] = new long[Math.max(minLength, maxLength)];
+		return longPayloadBuffers;
+	}
+
+	/** returns a stack for run starts (or bases), with at least the given length */
+	public int[] starts(int minLength) {
+		if (starts.length < minLength) starts = new int[grow(starts.length, minLength)];
+		return starts;
+	}
+
+	/** returns a stack for run ends (or lengths), with at least the given length */
+	public int[] ends(int minLength) {
+		if (ends.length < minLength) ends = new int[grow(ends.length, minLength)];
+		return ends;
+	}
+
+	/** current buffer length, e.g., to monitor memory use */
+	public int bufferLength() {
+		return buffer.length;
+	}
+
+	/**
+	 * Grows by at least a factor 1.5 to get amortized linear cost
+	 * for slowly increasing sizes.
+	 */
+	private static int grow(int oldLength, int minLength) {
+		int newLength = oldLength + (oldLength >> 1);
+		return newLength < minLength || newLength < 0 ? minLength : newLength;
+	}
+}
@@ -13,6 +13,15 @@ public interface Sorter {
 		sort(A, 0, A.length - 1);
 	}
 
+	/**
+	 * Sorts A[left..right] using (and growing) the given workspace for
+	 * temporary storage, so that repeated sorts need not allocate.
+	 * The default ignores the workspace.
+	 */
+	default void sort(int[] A, int left, int right, SortWorkspace workspace) {
+		sort(A, left, right);
+	}
+
 	public static Sorter SYSTEMSORT = new Sorter() {
 		@Override
 		public void sort(final int[] A, final int left, final int right) {
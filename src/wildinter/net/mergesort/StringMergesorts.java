@@ -0,0 +1,437 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+
+/**
+ * LCP-aware powersort for strings, as String[] (compared by
+ * {@link String#compareTo}) or as byte[][] (compared unsigned
+ * lexicographically, which is code point order for UTF-8).
+ *
+ * Each run keeps the lengths of the longest common prefixes (LCPs) of
+ * neighboring elements; the merge (LCP merge sort, Ng and Kakehi 2008)
+ * uses them to decide most comparisons without looking at the strings
+ * and to skip shared prefixes otherwise, so long common prefixes are not
+ * compared again and again. The first few characters of every string are
+ * also cached in a long, so that strings differing early are compared
+ * without following the reference.
+ * All methods are stable; powersort needs buffers of n elements.
+ */
+public class StringMergesorts {
+
+	/** minRunLen used by {@link #sort} */
+	public static final int DEFAULT_MIN_RUN_LEN = 16;
+
+	/** number of chars of a String cached in a long */
+	public static final int PREFIX_CHARS = 4;
+
+	/** number of bytes of a byte[] cached in a long */
+	public static final int PREFIX_BYTES = 8;
+
+	private static final int NULL_INDEX = Integer.MIN_VALUE;
+
+	private StringMergesorts() {}
+
+	/** Sorts A by natural (UTF-16) order, using LCP-aware powersort */
+	public static void sort(String[] A) {
+		sort(A, 0, A.length - 1);
+	}
+
+	/** Sorts A[left..right] by natural (UTF-16) order, using LCP-aware powersort */
+	public static void sort(String[] A, int left, int right) {
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN);
+	}
+
+	/**
+	 * Sorts A[left..right] stably with powersort, merging with
+	 * {@link #mergeRuns(String[], int[], long[], int, int, int, String[], int[], long[])}
+	 * and extending runs to minRunLen by insertion sort.
+	 */
+	public static void powersort(String[] A, int left, int right, int minRunLen) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int[] H = new int[right + 1];
+		long[] K = new long[right + 1];
+		for (int i = left; i <= right; ++i) K[i] = prefix(A[i]);
+		String[] BA = new String[n];
+		int[] BH = new int[n];
+		long[] BK = new long[n];
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, H, K, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, H, K, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, H, K, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, H, K, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, H, K, leftRunStart[l], leftRunEnd[l]+1, endA, BA, BH, BK);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, H, K, leftRunStart[l], leftRunEnd[l]+1, right, BA, BH, BK);
+		}
+	}
+
+	/**
+	 * LCP merge of the runs A[l..m-1] and A[m..r] into A[l..r].
+	 * Within each run, H[i] is the length of the longest common prefix
+	 * of A[i-1] and A[i] (H[l] and H[m] are ignored), and K[i] is
+	 * {@link #prefix}(A[i]); both are updated for the merged run.
+	 * The left run is copied to BA[0..], BH[0..] and BK[0..].
+	 *
+	 * For each run head, we know its LCP with the last output element;
+	 * if these differ, the head with the longer LCP is smaller without
+	 * looking at the keys, otherwise only the characters after the
+	 * common prefix are compared.
+	 */
+	public static void mergeRuns(String[] A, int[] H, long[] K, int l, int m, int r,
+	                             String[] BA, int[] BH, long[] BK) {
+		int n1 = m-l;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(r-l+1);
+		System.arraycopy(A, l, BA, 0, n1);
+		System.arraycopy(H, l, BH, 0, n1);
+		System.arraycopy(K, l, BK, 0, n1);
+		int i = 0, j = m, o = l;
+		int ha = 0, hb = 0; // LCP of BA[i] resp. A[j] with the last output
+		while (i < n1 && j <= r) {
+			if (ha > hb) { // BA[i] < A[j]
+				A[o] = BA[i]; H[o] = ha; K[o++] = BK[i++];
+				if (i < n1) ha = BH[i];
+			} else if (ha < hb) { // A[j] < BA[i]
+				A[o] = A[j]; H[o] = hb; K[o++] = K[j++];
+				if (j <= r) hb = H[j];
+			} else {
+				int c = compare(BA[i], BK[i], A[j], K[j], ha);
+				if ((c & 1) == 0) { // BA[i] <= A[j]
+					A[o] = BA[i]; H[o] = ha; K[o++] = BK[i++];
+					hb = c >>> 1;
+					if (i < n1) ha = BH[i];
+				} else {
+					A[o] = A[j]; H[o] = hb; K[o++] = K[j++];
+					ha = c >>> 1;
+					if (j <= r) hb = H[j];
+				}
+			}
+		}
+		if (i < n1) {
+			System.arraycopy(BA, i, A, o, n1 - i);
+			System.arraycopy(BH, i, H, o, n1 - i);
+			System.arraycopy(BK, i, K, o, n1 - i);
+			H[o] = ha;
+		} else if (j <= r) {
+			H[j] = hb; // o == j
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] (and K along) by straight-insertion sort, assuming the
+	 * leftmost nPresorted elements form a weakly increasing run; then sets
+	 * H[left+1..right] to the LCPs of neighbors.
+	 */
+	public static void insertionsort(String[] A, int[] H, long[] K, int left, int right, int nPresorted) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final String v = A[i];
+			final long kv = K[i];
+			while ((compare(A[j], K[j], v, kv, 0) & 1) != 0) {
+				A[j+1] = A[j]; K[j+1] = K[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v; K[j+1] = kv;
+		}
+		for (int i = left + 1; i <= right; ++i)
+			H[i] = compare(A[i-1], K[i-1], A[i], K[i], 0) >>> 1;
+	}
+
+	/**
+	 * Finds the run starting at A[i] and ending at most at A[right],
+	 * reversing it (with H and K) if it is strictly descending;
+	 * sets H for the run and returns its end.
+	 */
+	public static int extendAndReverseRunRight(String[] A, int[] H, long[] K, int i, int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		int c = compare(A[j], K[j], A[j+1], K[j+1], 0);
+		H[++j] = c >>> 1;
+		if ((c & 1) != 0) { // Strictly Descending
+			while (j < right && ((c = compare(A[j], K[j], A[j+1], K[j+1], 0)) & 1) != 0)
+				H[++j] = c >>> 1;
+			reverseRange(A, i, j);
+			reverseRange(K, i, j);
+			// H[t] belongs to the pair (t-1, t), so its range shifts by one
+			reverseRange(H, i+1, j);
+		} else { // Weakly Ascending
+			while (j < right && ((c = compare(A[j], K[j], A[j+1], K[j+1], 0)) & 1) == 0)
+				H[++j] = c >>> 1;
+		}
+		return j;
+	}
+
+	/**
+	 * Compares a and b, which are known to share a prefix of length h,
+	 * given their cached prefixes pa and pb;
+	 * returns (lcp(a, b) << 1) | (a > b ? 1 : 0).
+	 */
+	static int compare(String a, long pa, String b, long pb, int h) {
+		int lenA = a.length(), lenB = b.length();
+		if (pa != pb) {
+			// the first difference is within the cached prefix (so after h);
+			// the padding of a shorter string may match 0s of the other one
+			int k = Math.min(Long.numberOfLeadingZeros(pa ^ pb) / 16, Math.min(lenA, lenB));
+			return (k << 1) | (Long.compareUnsigned(pa, pb) > 0 ? 1 : 0);
+		}
+		int k = lenA >= PREFIX_CHARS && lenB >= PREFIX_CHARS ? Math.max(h, PREFIX_CHARS) : h;
+		int n = Math.min(lenA, lenB);
+		while (k < n && a.charAt(k) == b.charAt(k)) ++k;
+		boolean greater = k < lenA && (k == lenB || a.charAt(k) > b.charAt(k));
+		return (k << 1) | (greater ? 1 : 0);
+	}
+
+	/** the first PREFIX_CHARS chars of s, big-endian in a long, padded with 0 */
+	public static long prefix(String s) {
+		int len = Math.min(s.length(), PREFIX_CHARS);
+		long p = 0;
+		for (int k = 0; k < PREFIX_CHARS; ++k)
+			p = (p << 16) | (k < len ? s.charAt(k) : 0);
+		return p;
+	}
+
+	public static void reverseRange(String[] A, int lo, int hi) {
+		while (lo < hi) {
+			String t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+
+	/** Sorts A by unsigned lexicographic order (code point order for UTF-8), using LCP-aware powersort */
+	public static void sort(byte[][] A) {
+		sort(A, 0, A.length - 1);
+	}
+
+	/** Sorts A[left..right] by unsigned lexicographic order (code point order for UTF-8), using LCP-aware powersort */
+	public static void sort(byte[][] A, int left, int right) {
+		powersort(A, left, right, DEFAULT_MIN_RUN_LEN);
+	}
+
+	/**
+	 * Sorts A[left..right] stably with powersort, merging with
+	 * {@link #mergeRuns(byte[][], int[], long[], int, int, int, byte[][], int[], long[])}
+	 * and extending runs to minRunLen by insertion sort.
+	 */
+	public static void powersort(byte[][] A, int left, int right, int minRunLen) {
+		int n = right - left + 1;
+		if (n < 2) return;
+		int[] H = new int[right + 1];
+		long[] K = new long[right + 1];
+		for (int i = left; i <= right; ++i) K[i] = prefix(A[i]);
+		byte[][] BA = new byte[n][];
+		int[] BH = new int[n];
+		long[] BK = new long[n];
+		int lgnPlus2 = PowerSort.log2(n) + 2;
+		int[] leftRunStart = new int[lgnPlus2], leftRunEnd = new int[lgnPlus2];
+		Arrays.fill(leftRunStart, NULL_INDEX);
+		int top = 0;
+
+		int startA = left, endA = extendAndReverseRunRight(A, H, K, startA, right);
+		// extend to minRunLen
+		int lenA = endA - startA + 1;
+		if (lenA < minRunLen) {
+			endA = Math.min(right, startA + minRunLen-1);
+			insertionsort(A, H, K, startA, endA, lenA);
+		}
+		while (endA < right) {
+			int startB = endA + 1, endB = extendAndReverseRunRight(A, H, K, startB, right);
+			// extend to minRunLen
+			int lenB = endB - startB + 1;
+			if (lenB < minRunLen) {
+				endB = Math.min(right, startB + minRunLen-1);
+				insertionsort(A, H, K, startB, endB, lenB);
+			}
+			int k = PowerSort.nodePower(left, right, startA, startB, endB);
+			assert k != top;
+			for (int l = top; l > k; --l) {
+				if (leftRunStart[l] == NULL_INDEX) continue;
+				mergeRuns(A, H, K, leftRunStart[l], leftRunEnd[l]+1, endA, BA, BH, BK);
+				startA = leftRunStart[l];
+				leftRunStart[l] = NULL_INDEX;
+			}
+			// store left half of merge between A and B
+			leftRunStart[k] = startA; leftRunEnd[k] = endA;
+			top = k;
+			startA = startB; endA = endB;
+		}
+		assert endA == right;
+		for (int l = top; l > 0; --l) {
+			if (leftRunStart[l] == NULL_INDEX) continue;
+			mergeRuns(A, H, K, leftRunStart[l], leftRunEnd[l]+1, right, BA, BH, BK);
+		}
+	}
+
+	/**
+	 * LCP merge of the runs A[l..m-1] and A[m..r] into A[l..r].
+	 * Within each run, H[i] is the length of the longest common prefix
+	 * of A[i-1] and A[i] (H[l] and H[m] are ignored), and K[i] is
+	 * {@link #prefix}(A[i]); both are updated for the merged run.
+	 * The left run is copied to BA[0..], BH[0..] and BK[0..].
+	 *
+	 * For each run head, we know its LCP with the last output element;
+	 * if these differ, the head with the longer LCP is smaller without
+	 * looking at the keys, otherwise only the characters after the
+	 * common prefix are compared.
+	 */
+	public static void mergeRuns(byte[][] A, int[] H, long[] K, int l, int m, int r,
+	                             byte[][] BA, int[] BH, long[] BK) {
+		int n1 = m-l;
+		if (MergesAndRuns.COUNT_MERGE_COSTS) MergesAndRuns.totalMergeCosts.add(r-l+1);
+		System.arraycopy(A, l, BA, 0, n1);
+		System.arraycopy(H, l, BH, 0, n1);
+		System.arraycopy(K, l, BK, 0, n1);
+		int i = 0, j = m, o = l;
+		int ha = 0, hb = 0; // LCP of BA[i] resp. A[j] with the last output
+		while (i < n1 && j <= r) {
+			if (ha > hb) { // BA[i] < A[j]
+				A[o] = BA[i]; H[o] = ha; K[o++] = BK[i++];
+				if (i < n1) ha = BH[i];
+			} else if (ha < hb) { // A[j] < BA[i]
+				A[o] = A[j]; H[o] = hb; K[o++] = K[j++];
+				if (j <= r) hb = H[j];
+			} else {
+				int c = compare(BA[i], BK[i], A[j], K[j], ha);
+				if ((c & 1) == 0) { // BA[i] <= A[j]
+					A[o] = BA[i]; H[o] = ha; K[o++] = BK[i++];
+					hb = c >>> 1;
+					if (i < n1) ha = BH[i];
+				} else {
+					A[o] = A[j]; H[o] = hb; K[o++] = K[j++];
+					ha = c >>> 1;
+					if (j <= r) hb = H[j];
+				}
+			}
+		}
+		if (i < n1) {
+			System.arraycopy(BA, i, A, o, n1 - i);
+			System.arraycopy(BH, i, H, o, n1 - i);
+			System.arraycopy(BK, i, K, o, n1 - i);
+			H[o] = ha;
+		} else if (j <= r) {
+			H[j] = hb; // o == j
+		}
+	}
+
+	/**
+	 * Sorts A[left..right] (and K along) by straight-insertion sort, assuming the
+	 * leftmost nPresorted elements form a weakly increasing run; then sets
+	 * H[left+1..right] to the LCPs of neighbors.
+	 */
+	public static void insertionsort(byte[][] A, int[] H, long[] K, int left, int right, int nPresorted) {
+		for (int i = left + Math.max(nPresorted, 1); i <= right ; ++i) {
+			int j = i - 1;
+			final byte[] v = A[i];
+			final long kv = K[i];
+			while ((compare(A[j], K[j], v, kv, 0) & 1) != 0) {
+				A[j+1] = A[j]; K[j+1] = K[j];
+				--j;
+				if (j < left) break;
+			}
+			A[j+1] = v; K[j+1] = kv;
+		}
+		for (int i = left + 1; i <= right; ++i)
+			H[i] = compare(A[i-1], K[i-1], A[i], K[i], 0) >>> 1;
+	}
+
+	/**
+	 * Finds the run starting at A[i] and ending at most at A[right],
+	 * reversing it (with H and K) if it is strictly descending;
+	 * sets H for the run and returns its end.
+	 */
+	public static int extendAndReverseRunRight(byte[][] A, int[] H, long[] K, int i, int right) {
+		assert i <= right;
+		int j = i;
+		if (j == right) return j;
+		int c = compare(A[j], K[j], A[j+1], K[j+1], 0);
+		H[++j] = c >>> 1;
+		if ((c & 1) != 0) { // Strictly Descending
+			while (j < right && ((c = compare(A[j], K[j], A[j+1], K[j+1], 0)) & 1) != 0)
+				H[++j] = c >>> 1;
+			reverseRange(A, i, j);
+			reverseRange(K, i, j);
+			// H[t] belongs to the pair (t-1, t), so its range shifts by one
+			reverseRange(H, i+1, j);
+		} else { // Weakly Ascending
+			while (j < right && ((c = compare(A[j], K[j], A[j+1], K[j+1], 0)) & 1) == 0)
+				H[++j] = c >>> 1;
+		}
+		return j;
+	}
+
+	/**
+	 * Compares a and b, which are known to share a prefix of length h,
+	 * given their cached prefixes pa and pb;
+	 * returns (lcp(a, b) << 1) | (a > b ? 1 : 0).
+	 */
+	static int compare(byte[] a, long pa, byte[] b, long pb, int h) {
+		int lenA = a.length, lenB = b.length;
+		if (pa != pb) {
+			// the first difference is within the cached prefix (so after h);
+			// the padding of a shorter string may match 0s of the other one
+			int k = Math.min(Long.numberOfLeadingZeros(pa ^ pb) / 8, Math.min(lenA, lenB));
+			return (k << 1) | (Long.compareUnsigned(pa, pb) > 0 ? 1 : 0);
+		}
+		int k = lenA >= PREFIX_BYTES && lenB >= PREFIX_BYTES ? Math.max(h, PREFIX_BYTES) : h;
+		int n = Math.min(lenA, lenB);
+		while (k < n && a[k] == b[k]) ++k;
+		boolean greater = k < lenA && (k == lenB || (a[k] & 0xFF) > (b[k] & 0xFF));
+		return (k << 1) | (greater ? 1 : 0);
+	}
+
+	/** the first PREFIX_BYTES bytes of s, big-endian in a long, padded with 0 */
+	public static long prefix(byte[] s) {
+		int len = Math.min(s.length, PREFIX_BYTES);
+		long p = 0;
+		for (int k = 0; k < PREFIX_BYTES; ++k)
+			p = (p << 8) | (k < len ? (s[k] & 0xFF) : 0);
+		return p;
+	}
+
+	public static void reverseRange(byte[][] A, int lo, int hi) {
+		while (lo < hi) {
+			byte[] t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+
+	public static void reverseRange(int[] A, int lo, int hi) {
+		while (lo < hi) {
+			int t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+
+	public static void reverseRange(long[] A, int lo, int hi) {
+		while (lo < hi) {
+			long t = A[lo]; A[lo++] = A[hi]; A[hi--] = t;
+		}
+	}
+}
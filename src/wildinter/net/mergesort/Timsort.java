@@ -42,6 +42,10 @@ public class Timsort {
 		public void sort(final int[] A, final int left, final int right) {
 			Timsort.sort(A, left, right +1);
 		}
+		@Override
+		public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+			Timsort.sort(A, left, right +1, workspace);
+		}
         @Override
        	public String toString() {
        		return "Timsort-JDK8";
@@ -96,10 +100,10 @@ public class Timsort {
     private static final int INITIAL_TMP_STORAGE_LENGTH = 256;
 
     /**
-     * Temp storage for merges. A workspace array may optionally be
-     * provided in constructor, and if so will be used as long as it
-     * is big enough.
+     * Temp storage for merges, taken from (and grown in) the workspace
+     * provided in the constructor.
      */
+    private final SortWorkspace workspace;
     private int[] tmp;
     private int tmpBase; // base of tmp array slice
     private int tmpLen;  // length of tmp array slice
@@ -122,27 +126,19 @@ public class Timsort {
      * Creates a TimSort instance to maintain the state of an ongoing sort.
      *
      * @param a the array to be sorted
-     * @param work a workspace array (slice)
-     * @param workBase origin of usable space in work array
-     * @param workLen usable size of work array
+     * @param workspace provides temp storage and the run stack
      */
-    private Timsort(int[] a, int[] work, int workBase, int workLen) {
+    private Timsort(int[] a, SortWorkspace workspace) {
         this.a = a;
+        this.workspace = workspace;
 
-        // Allocate temp storage (which may be increased later if necessary)
+        // Get temp storage (which may be increased later if necessary)
         int len = a.length;
         int tlen = (len < 2 * INITIAL_TMP_STORAGE_LENGTH) ?
             len >>> 1 : INITIAL_TMP_STORAGE_LENGTH;
-        if (work == null || workLen < tlen || workBase + tlen > work.length) {
-            tmp = new  int[tlen];
-            tmpBase = 0;
-            tmpLen = tlen;
-        }
-        else {
-            tmp = work;
-            tmpBase = workBase;
-            tmpLen = workLen;
-        }
+        tmp = workspace.buffer(tlen);
+        tmpBase = 0;
+        tmpLen = tmp.length;
 
         /*
          * Allocate runs-to-be-merged stack (which cannot be expanded).  The
@@ -161,8 +157,8 @@ public class Timsort {
         int stackLen = (len <    120  ?  5 :
                         len <   1542  ? 10 :
                         len < 119151  ? 24 : 49);
-        runBase = new int[stackLen];
-        runLen = new int[stackLen];
+        runBase = workspace.starts(stackLen);
+        runLen = workspace.ends(stackLen);
     }
 
     /*
@@ -183,6 +179,14 @@ public class Timsort {
      * @since 1.8
      */
     public static void sort(int[] a, int lo, int hi) {
+        sort(a, lo, hi, new SortWorkspace());
+    }
+
+    /**
+     * Sorts the given range like {@link #sort(int[], int, int)}, taking
+     * all temp storage from the given workspace.
+     */
+    public static void sort(int[] a, int lo, int hi, SortWorkspace workspace) {
         assert a != null && lo >= 0 && lo <= hi && hi <= a.length;
 
         int nRemaining  = hi - lo;
@@ -201,7 +205,7 @@ public class Timsort {
          * extending short natural runs to minRun elements, and merging runs
          * to maintain stack invariant.
          */
-        Timsort ts = new Timsort(a, null, 0, 0);
+        Timsort ts = new Timsort(a, workspace);
         int minRun = minRunLength(nRemaining);
         do {
             // Identify next run
@@ -895,9 +899,9 @@ public class Timsort {
                 newSize = Math.min(newSize, a.length >>> 1);
 
             @SuppressWarnings({"unchecked", "UnnecessaryLocalVariable"})
-            int[] newArray = new int[newSize];
+            int[] newArray = workspace.buffer(newSize);
             tmp = newArray;
-            tmpLen = newSize;
+            tmpLen = newArray.length;
             tmpBase = 0;
         }
         return tmp;
@@ -12,6 +12,10 @@ public class TimsortStrippedDown {
 		public void sort(final int[] A, final int left, final int right) {
 			TimsortStrippedDown.sort(A, left, right +1);
 		}
+		@Override
+		public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+			TimsortStrippedDown.sort(A, left, right +1, workspace);
+		}
         @Override
        	public String toString() {
             return TimsortStrippedDown.class.getSimpleName();
@@ -46,8 +50,9 @@ public class TimsortStrippedDown {
      * Creates a TimSort instance to maintain the state of an ongoing sort.
      *
      * @param a the array to be sorted
+     * @param workspace provides the merge buffer and the run stack
      */
-    private TimsortStrippedDown(int[] a) {
+    private TimsortStrippedDown(int[] a, SortWorkspace workspace) {
         this.a = a;
 
         // Allocate temp storage (which may be increased later if necessary)
@@ -71,10 +76,10 @@ public class TimsortStrippedDown {
                         len <   1542  ? 10 :
                         len < 119151  ? 24 : 49);
         stackLen *= 2; // NOTE conservatively increased this since we removed minRunLen!
-        runBase = new int[stackLen];
-        runLen = new int[stackLen];
+        runBase = workspace.starts(stackLen);
+        runLen = workspace.ends(stackLen);
 
-        this.buffer = new int[len];
+        this.buffer = workspace.buffer(len);
     }
 
     /*
@@ -95,6 +100,14 @@ public class TimsortStrippedDown {
      * @since 1.8
      */
     static void sort(int[] a, int lo, int hi) {
+        sort(a, lo, hi, new SortWorkspace());
+    }
+
+    /**
+     * Sorts the given range like {@link #sort(int[], int, int)}, taking
+     * the merge buffer and the run stack from the given workspace.
+     */
+    static void sort(int[] a, int lo, int hi, SortWorkspace workspace) {
         assert a != null && lo >= 0 && lo <= hi && hi <= a.length;
 
         int nRemaining  = hi - lo;
@@ -106,7 +119,7 @@ public class TimsortStrippedDown {
          * extending short natural runs to minRun elements, and merging runs
          * to maintain stack invariant.
          */
-        TimsortStrippedDown ts = new TimsortStrippedDown(a);
+        TimsortStrippedDown ts = new TimsortStrippedDown(a, workspace);
         do {
             // Identify next run
             int runLen = countRunAndMakeAscending(a, lo, hi);
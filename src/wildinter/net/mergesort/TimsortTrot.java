@@ -45,20 +45,38 @@ import static wildinter.net.mergesort.MergesAndRuns.mergeRuns;
  */
 public class TimsortTrot {
 
-    /** Flag to switch to straight insertion sort; default is as in library */
-    public static boolean USE_BINARY_INSERTIONSORT = true;
-
+	/** Uses binary insertion sort to extend short runs, as in the library */
 	public static final Sorter INSTANCE = new Sorter() {
 		@Override
 		public void sort(final int[] A, final int left, final int right) {
 			TimsortTrot.sort(A, left, right +1);
 		}
+		@Override
+		public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+			TimsortTrot.sort(A, left, right +1, workspace, true);
+		}
         @Override
        	public String toString() {
        		return TimsortTrot.class.getSimpleName();
        	}
 	};
 
+	/** Uses straight insertion sort to extend short runs */
+	public static final Sorter STRAIGHT_INSERTIONSORT = new Sorter() {
+		@Override
+		public void sort(final int[] A, final int left, final int right) {
+			sort(A, left, right, new SortWorkspace());
+		}
+		@Override
+		public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+			TimsortTrot.sort(A, left, right +1, workspace, false);
+		}
+        @Override
+       	public String toString() {
+       		return TimsortTrot.class.getSimpleName() + "+straightInsertionsort";
+       	}
+	};
+
 
 	/**
      * This is the minimum sized sequence that will be merged.  Shorter
@@ -84,23 +102,6 @@ public class TimsortTrot {
      */
     private final int[] a;
 
-	/**
-     * Maximum initial size of tmp array, which is used for merging.  The array
-     * can grow to accommodate demand.
-     *
-     * Unlike Tim's original C version, we do not allocate this much storage
-     * when sorting smaller arrays.  This change was required for performance.
-     */
-    private static final int INITIAL_TMP_STORAGE_LENGTH = 256;
-
-    /**
-     * Temp storage for merges. A workspace array may optionally be
-     * provided in constructor, and if so will be used as long as it
-     * is big enough.
-     */
-    private int[] tmp;
-	private int tmpLen;  // length of tmp array slice
-
     /**
      * A stack of pending runs yet to be merged.  Run i starts at
      * address base[i] and extends for len[i] elements.  It's always
@@ -122,25 +123,11 @@ public class TimsortTrot {
      * Creates a TimSort instance to maintain the state of an ongoing sort.
      *
      * @param a the array to be sorted
-     * @param work a workspace array (slice)
-     * @param workBase origin of usable space in work array
-     * @param workLen usable size of work array
+     * @param workspace provides the merge buffer and the run stack
      */
-    private TimsortTrot(int[] a, int[] work, int workBase, int workLen) {
+    private TimsortTrot(int[] a, SortWorkspace workspace) {
         this.a = a;
-
-        // Allocate temp storage (which may be increased later if necessary)
         int len = a.length;
-        int tlen = (len < 2 * INITIAL_TMP_STORAGE_LENGTH) ?
-            len >>> 1 : INITIAL_TMP_STORAGE_LENGTH;
-        if (work == null || workLen < tlen || workBase + tlen > work.length) {
-	        tmp = new  int[tlen];
-	        tmpLen = tlen;
-        }
-        else {
-            tmp = work;
-	        tmpLen = workLen;
-        }
 
         /*
          * Allocate runs-to-be-merged stack (which cannot be expanded).  The
@@ -159,10 +146,10 @@ public class TimsortTrot {
         int stackLen = (len <    120  ?  5 :
                         len <   1542  ? 10 :
                         len < 119151  ? 24 : 49);
-        runBase = new int[stackLen];
-        runLen = new int[stackLen];
+        runBase = workspace.starts(stackLen);
+        runLen = workspace.ends(stackLen);
 
-        this.buffer = new int[len];
+        this.buffer = workspace.buffer(len);
     }
 
     /*
@@ -183,6 +170,16 @@ public class TimsortTrot {
      * @since 1.8
      */
     static void sort(int[] a, int lo, int hi) {
+        sort(a, lo, hi, new SortWorkspace(), true);
+    }
+
+    /**
+     * Sorts the given range like {@link #sort(int[], int, int)}, taking
+     * the merge buffer and the run stack from the given workspace.
+     * If useBinaryInsertionsort is false, short runs are extended by
+     * straight insertion sort instead of binary insertion sort.
+     */
+    static void sort(int[] a, int lo, int hi, SortWorkspace workspace, boolean useBinaryInsertionsort) {
         assert a != null && lo >= 0 && lo <= hi && hi <= a.length;
 
         int nRemaining  = hi - lo;
@@ -192,7 +189,7 @@ public class TimsortTrot {
         // If array is small, do a "mini-TimSort" with no merges
         if (nRemaining < MIN_MERGE) {
             int initRunLen = countRunAndMakeAscending(a, lo, hi);
-            if (USE_BINARY_INSERTIONSORT)
+            if (useBinaryInsertionsort)
                 binarySort(a, lo, hi, lo + initRunLen);
             else
                 Insertionsort.insertionsort(a, lo, hi-1, initRunLen);
@@ -204,7 +201,7 @@ public class TimsortTrot {
          * extending short natural runs to minRun elements, and merging runs
          * to maintain stack invariant.
          */
-        TimsortTrot ts = new TimsortTrot(a, null, 0, 0);
+        TimsortTrot ts = new TimsortTrot(a, workspace);
         int minRun = minRunLength(nRemaining);
         do {
             // Identify next run
@@ -213,7 +210,7 @@ public class TimsortTrot {
             // If run is short, extend to min(minRun, nRemaining)
             if (runLen < minRun) {
                 int force = nRemaining <= minRun ? nRemaining : minRun;
-                if (USE_BINARY_INSERTIONSORT)
+                if (useBinaryInsertionsort)
                     binarySort(a, lo, lo + force, lo + runLen);
                 else
                     Insertionsort.insertionsort(a, lo, lo+force-1, runLen);
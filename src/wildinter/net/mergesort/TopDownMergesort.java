@@ -1,7 +1,5 @@
 package wildinter.net.mergesort;
 
-import static wildinter.net.mergesort.MergesAndRuns.mergeRuns;
-
 /**
  * Simple top-down mergesort implementation.
  *
@@ -17,52 +15,93 @@ public class TopDownMergesort implements Sorter {
 
 	private final int myInsertionsortThreshold;
 	private final boolean doSortedCheck;
+	private final Merger merger;
+	private final BaseCase baseCase;
 
 	public TopDownMergesort(final int insertionsortThreshold, final boolean doSortedCheck) {
+		this(insertionsortThreshold, doSortedCheck, Merger.BITONIC);
+	}
+
+	public TopDownMergesort(final int insertionsortThreshold, final boolean doSortedCheck, final Merger merger) {
+		this(insertionsortThreshold, doSortedCheck, merger, BaseCase.INSERTIONSORT);
+	}
+
+	/** Top-down mergesort that sorts subproblems of at most insertionsortThreshold elements with baseCase */
+	public TopDownMergesort(final int insertionsortThreshold, final boolean doSortedCheck, final Merger merger,
+	                        final BaseCase baseCase) {
 		this.myInsertionsortThreshold = insertionsortThreshold;
 		this.doSortedCheck = doSortedCheck;
+		this.merger = merger;
+		this.baseCase = baseCase;
 	}
 
 	@Override
 	public void sort(final int[] A, final int left, final int right) {
-		insertionsortThreshold = myInsertionsortThreshold;
-		int[] buffer = new int[(right - left + 1)];
+		sort(A, left, right, new SortWorkspace());
+	}
+
+	@Override
+	public void sort(final int[] A, final int left, final int right, final SortWorkspace workspace) {
+		int[] buffer = workspace.buffer(right + 1);
 		if (doSortedCheck)
-			mergesortCheckSorted(A, left, right, buffer);
+			mergesortCheckSorted(A, left, right, buffer, myInsertionsortThreshold, merger, baseCase);
 		else
-			mergesort(A, left, right, buffer);
+			mergesort(A, left, right, buffer, myInsertionsortThreshold, merger, baseCase);
 	}
 
-	private static int insertionsortThreshold = 24;
+	/** insertionsortThreshold used by the static methods without that parameter */
+	public static final int DEFAULT_INSERTIONSORT_THRESHOLD = 24;
 
 	public static void mergesortCheckSorted(int[] A, int left, int right, final int[] buffer) {
+		mergesortCheckSorted(A, left, right, buffer, DEFAULT_INSERTIONSORT_THRESHOLD, Merger.BITONIC);
+	}
+
+	public static void mergesortCheckSorted(int[] A, int left, int right, final int[] buffer,
+	                                        final int insertionsortThreshold, final Merger merger) {
+		mergesortCheckSorted(A, left, right, buffer, insertionsortThreshold, merger, BaseCase.INSERTIONSORT);
+	}
+
+	public static void mergesortCheckSorted(int[] A, int left, int right, final int[] buffer,
+	                                        final int insertionsortThreshold, final Merger merger, final BaseCase baseCase) {
 		int n = right - left + 1;
 		if (n <= insertionsortThreshold) {
-			Insertionsort.insertionsort(A, left, right);
+			baseCase.sort(A, left, right, 1);
 			return;
 		}
 		int m = left + (n >> 1);
-		mergesortCheckSorted(A, left, m-1, buffer);
-		mergesortCheckSorted(A, m, right, buffer);
+		mergesortCheckSorted(A, left, m-1, buffer, insertionsortThreshold, merger, baseCase);
+		mergesortCheckSorted(A, m, right, buffer, insertionsortThreshold, merger, baseCase);
 		if (A[m-1] > A[m])
-			mergeRuns(A,left, m, right, buffer);
+			merger.merge(A,left, m, right, buffer);
 	}
 
 	public static void mergesort(int[] A, int left, int right, final int[] buffer) {
+		mergesort(A, left, right, buffer, DEFAULT_INSERTIONSORT_THRESHOLD, Merger.BITONIC);
+	}
+
+	public static void mergesort(int[] A, int left, int right, final int[] buffer,
+	                             final int insertionsortThreshold, final Merger merger) {
+		mergesort(A, left, right, buffer, insertionsortThreshold, merger, BaseCase.INSERTIONSORT);
+	}
+
+	public static void mergesort(int[] A, int left, int right, final int[] buffer,
+	                             final int insertionsortThreshold, final Merger merger, final BaseCase baseCase) {
 		int n = right - left + 1;
 		if (n <= insertionsortThreshold) {
-			Insertionsort.insertionsort(A, left, right);
+			baseCase.sort(A, left, right, 1);
 			return;
 		}
 		int m = left + (n >> 1);
-		mergesort(A, left, m-1, buffer);
-		mergesort(A, m, right, buffer);
-		mergeRuns(A,left, m, right, buffer);
+		mergesort(A, left, m-1, buffer, insertionsortThreshold, merger, baseCase);
+		mergesort(A, m, right, buffer, insertionsortThreshold, merger, baseCase);
+		merger.merge(A,left, m, right, buffer);
 	}
 
 	@Override
 	public String toString() {
-		return getClass().getSimpleName() + "+iscutoff="+ myInsertionsortThreshold + "+checkSorted=" + doSortedCheck;
+		return getClass().getSimpleName() + "+iscutoff="+ myInsertionsortThreshold + "+checkSorted=" + doSortedCheck
+				+ (merger == Merger.BITONIC ? "" : "+merger=" + merger)
+				+ (baseCase == BaseCase.INSERTIONSORT ? "" : "+base=" + baseCase);
 	}
 
 	public static void main(String[] args) {
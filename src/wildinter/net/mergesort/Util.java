@@ -42,10 +42,12 @@ public class Util {
 	}
 
 	public static boolean isSorted(int[] a) {
-		for (int i = 0; i < a.length - 1; i++) {
-			if (a[i + 1] < a[i]) return false;
-		}
-		return true;
+		return isSorted(a, 0, a.length - 1);
+	}
+
+	/** Whether a[left..right] is weakly increasing; uses the same scan as run detection */
+	public static boolean isSorted(int[] a, int left, int right) {
+		return left >= right || MergesAndRuns.extendWeaklyIncreasingRunRight(a, left, right) == right;
 	}
 
 
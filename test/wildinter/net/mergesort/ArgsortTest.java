@@ -0,0 +1,70 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ArgsortTest extends TestCase {
+
+	private static int[] randomKeys(int n, Random random) {
+		switch (random.nextInt(3)) {
+			case 0: return Inputs.randomUaryArray(1 + random.nextInt(10), n, random);
+			case 1: return Inputs.randomRuns(n, 1 + random.nextInt(n + 1), random);
+			default: return Inputs.randomPermutation(n, random);
+		}
+	}
+
+	/** perm is a permutation that sorts keys, with equal keys in index order */
+	private static void assertStableSortingPermutation(int[] keys, int[] perm) {
+		final int[] sorted = keys.clone();
+		Arrays.sort(sorted);
+		final boolean[] seen = new boolean[keys.length];
+		for (int i = 0; i < perm.length; ++i) {
+			assertFalse(seen[perm[i]]);
+			seen[perm[i]] = true;
+			assertEquals(sorted[i], keys[perm[i]]);
+			if (i > 0 && keys[perm[i-1]] == keys[perm[i]]) assertTrue(perm[i-1] < perm[i]);
+		}
+	}
+
+	public void testArgsort() throws Exception {
+		final Random random = new Random();
+		for (int n = 0; n < 20000; n += 1 + n / 4) {
+			final int[] keys = randomKeys(n, random), original = keys.clone();
+			assertStableSortingPermutation(keys, Argsort.argsort(keys));
+			assertTrue(Arrays.equals(original, keys));
+			final int[] perm = Argsort.argsortInPlace(keys);
+			assertStableSortingPermutation(original, perm);
+			for (int i = 0; i < n; ++i) assertEquals(original[perm[i]], keys[i]);
+		}
+	}
+
+	public void testReuseWorkspaceForSubranges() throws Exception {
+		final Random random = new Random();
+		final SortWorkspace workspace = new SortWorkspace();
+		for (int iter = 0; iter < 200; ++iter) {
+			final int n = 1 + random.nextInt(3000);
+			final int[] keys = randomKeys(n, random);
+			final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+			final int minRunLen = 1 + random.nextInt(32);
+			final int[] perm = Argsort.identity(n), permInPlace = Argsort.identity(n);
+			Argsort.argsort(keys, perm, left, right, minRunLen, workspace);
+			final int[] sortedKeys = keys.clone();
+			Argsort.argsortInPlace(sortedKeys, permInPlace, left, right, minRunLen, workspace);
+			assertTrue(Arrays.equals(perm, permInPlace));
+			// reorder payload columns by the permutation
+			final long[] payload = new long[n];
+			for (int i = 0; i < n; ++i) payload[i] = 10000L * keys[i] + i;
+			Argsort.apply(perm, payload, left, right);
+			final int[] column = keys.clone();
+			Argsort.apply(perm, column, left, right, workspace);
+			assertTrue(Arrays.equals(sortedKeys, column));
+			for (int i = 0; i < n; ++i) {
+				assertEquals(sortedKeys[i], payload[i] / 10000);
+				if (i < left || i > right) assertEquals(i, perm[i]);
+				else if (i > left && sortedKeys[i-1] == sortedKeys[i]) assertTrue(perm[i-1] < perm[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+public class BigPowerSortTest extends TestCase {
+
+	private static int[][] toBigArray(int[] A, int segmentShift) {
+		final int[][] big = BigPowerSort.newBigArray(A.length, segmentShift);
+		for (int i = 0; i < A.length; ++i) big[i >>> segmentShift][i & ((1 << segmentShift) - 1)] = A[i];
+		return big;
+	}
+
+	private static int[] flatten(int[][] big) {
+		final int[] A = new int[(int) BigPowerSort.length(big)];
+		int i = 0;
+		for (final int[] segment : big) for (final int x : segment) A[i++] = x;
+		return A;
+	}
+
+	public void testSortSegmented() throws Exception {
+		final Random random = new Random();
+		for (int iter = 0; iter < 300; ++iter) {
+			final int n = 1 + random.nextInt(iter % 2 == 0 ? 100 : 20000);
+			final int[] input = random.nextBoolean()
+					? Inputs.randomRuns(n, 1 + random.nextInt(n), random)
+					: Inputs.randomUaryArray(1 + random.nextInt(n), n, random);
+			final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+			final int[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			final int shift = 1 + random.nextInt(12);
+			int[][] A = toBigArray(input, shift);
+			BigPowerSort.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, flatten(A)));
+			A = toBigArray(input, shift);
+			BigPowerSort.powersort(A, left, right, 1, BigPowerSort.newBigArray(n / 2 + 1, 1 + random.nextInt(12)));
+			assertTrue(Arrays.equals(expected, flatten(A)));
+		}
+	}
+
+	/** reference: index of the first differing bit of the fractions l/2n and r/2n */
+	private static int exactNodePower(long left, long right, long startA, long startB, long endB) {
+		final BigInteger n2 = BigInteger.valueOf(right - left + 1).shiftLeft(1);
+		BigInteger l = BigInteger.valueOf(startA + startB - 2 * left), r = BigInteger.valueOf(startB + endB + 1 - 2 * left);
+		for (int k = 1; ; ++k) {
+			l = l.shiftLeft(1); r = r.shiftLeft(1);
+			final boolean digitA = l.compareTo(n2) >= 0, digitB = r.compareTo(n2) >= 0;
+			if (digitA != digitB) return k;
+			if (digitA) { l = l.subtract(n2); r = r.subtract(n2); }
+		}
+	}
+
+	public void testNodePower() throws Exception {
+		final Random random = new Random();
+		for (int iter = 0; iter < 100000; ++iter) {
+			final int n = 2 + random.nextInt(1 << 20);
+			final int startA = random.nextInt(n - 1), startB = startA + 1 + random.nextInt(n - startA - 1);
+			final int endB = startB + random.nextInt(n - startB);
+			assertEquals(PowerSort.nodePower(0, n - 1, startA, startB, endB),
+					BigPowerSort.nodePower(0, n - 1, startA, startB, endB));
+		}
+		for (int iter = 0; iter < 100000; ++iter) {
+			final long n = 2 + (random.nextLong() >>> 4), left = random.nextLong() >>> 5;
+			final long startA = left + (random.nextLong() >>> 1) % (n - 1);
+			final long startB = startA + 1 + (random.nextLong() >>> 1) % (left + n - 1 - startA);
+			final long endB = startB + (random.nextLong() >>> 1) % (left + n - startB);
+			assertEquals(exactNodePower(left, left + n - 1, startA, startB, endB),
+					BigPowerSort.nodePower(left, left + n - 1, startA, startB, endB));
+		}
+	}
+}
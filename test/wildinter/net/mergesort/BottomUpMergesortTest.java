@@ -1,16 +1,18 @@
 package wildinter.net.mergesort;
 
-import junit.framework.TestCase;
-
 import static wildinter.net.mergesort.HarnessSort.harness;
 
 /**
  * @author Sebastian Wild (wild@uwaterloo.ca)
  */
-public class BottomUpMergesortTest extends TestCase {
+public class BottomUpMergesortTest extends ForkJoinPoolTestCase {
 
 	public void testSort() throws Exception {
 		harness(new BottomUpMergesort(1, true));
 		harness(new BottomUpMergesort(5, false));
+		harness(new BottomUpMergesort(5, false, Merger.parallel(pool, 16)));
+		harness(new BottomUpMergesort(5, false, Merger.NETWORK));
+		harness(BottomUpMergesort.pingPong(1));
+		harness(BottomUpMergesort.pingPong(5));
 	}
 }
@@ -0,0 +1,71 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static wildinter.net.mergesort.ColumnarSort.ascending;
+import static wildinter.net.mergesort.ColumnarSort.descending;
+
+public class ColumnarSortTest extends TestCase {
+
+	/** stable reference permutation by (a asc, b desc, c asc) */
+	private static int[] expectedPermutation(int[] a, long[] b, int[] c) {
+		final Integer[] rows = new Integer[a.length];
+		for (int i = 0; i < rows.length; ++i) rows[i] = i;
+		Arrays.sort(rows, Comparator.<Integer>comparingInt(i -> a[i])
+				.thenComparing(Comparator.<Integer>comparingLong(i -> b[i]).reversed())
+				.thenComparingInt(i -> c[i]));
+		final int[] perm = new int[rows.length];
+		for (int i = 0; i < perm.length; ++i) perm[i] = rows[i];
+		return perm;
+	}
+
+	public void testPermutation() throws Exception {
+		final Random random = new Random();
+		for (int n = 1; n < 20000; n += 1 + n / 3) {
+			for (final boolean presortedPrefix : new boolean[] {false, true}) {
+				final int[] a = Inputs.randomUaryArray(1 + random.nextInt(20), n, random);
+				if (presortedPrefix) Arrays.sort(a);
+				final long[] b = new long[n];
+				for (int i = 0; i < n; ++i) b[i] = random.nextInt(5) * (long) Integer.MAX_VALUE;
+				final int[] c = Inputs.randomUaryArray(3, n, random);
+				final int[] expected = expectedPermutation(a, b, c);
+				final int[] perm = ColumnarSort.permutation(ascending(a), descending(b), ascending(c));
+				assertTrue(Arrays.equals(expected, perm));
+
+				final int[] payload = Argsort.identity(n);
+				final int[] sortedA = a.clone(), sortedC = c.clone();
+				final long[] sortedB = b.clone();
+				final int[] applied = ColumnarSort.sort(ascending(sortedA), descending(sortedB), ascending(sortedC));
+				assertTrue(Arrays.equals(expected, applied));
+				Argsort.apply(applied, payload, 0, n - 1, new SortWorkspace());
+				for (int i = 0; i < n; ++i) {
+					assertEquals(expected[i], payload[i]);
+					assertEquals(a[expected[i]], sortedA[i]);
+					assertEquals(b[expected[i]], sortedB[i]);
+					assertEquals(c[expected[i]], sortedC[i]);
+				}
+			}
+		}
+	}
+
+	public void testSortedOnAllKeys() throws Exception {
+		final int n = 1000;
+		final int[] a = new int[n];
+		final long[] b = new long[n];
+		for (int i = 0; i < n; ++i) { a[i] = i / 10; b[i] = -i; }
+		final int[] perm = ColumnarSort.permutation(ascending(a), descending(b));
+		assertTrue(Arrays.equals(Argsort.identity(n), perm));
+	}
+
+	public void testColumnsOfDifferentLength() throws Exception {
+		try {
+			ColumnarSort.permutation(ascending(new int[3]), ascending(new long[4]));
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+}
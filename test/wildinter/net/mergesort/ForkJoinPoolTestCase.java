@@ -0,0 +1,24 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Base class for tests of parallel sorts and merges: provides a pool
+ * with four workers that is created before and shut down after each test.
+ */
+public abstract class ForkJoinPoolTestCase extends TestCase {
+
+	protected ForkJoinPool pool;
+
+	@Override
+	protected void setUp() throws Exception {
+		pool = new ForkJoinPool(4);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pool.shutdown();
+	}
+}
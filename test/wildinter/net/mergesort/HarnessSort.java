@@ -3,7 +3,9 @@ package wildinter.net.mergesort;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import static wildinter.net.mergesort.Inputs.randomPermutation;
@@ -97,6 +99,51 @@ public class HarnessSort {
 	}
 
 
+	/**
+	 * Checks sorted, reverse sorted and random (ascending or alternating)
+	 * runs inputs; these contain long runs that are cut by chunk boundaries
+	 * in parallel sorts.
+	 */
+	public static void harnessPresorted(Sorter sort) {
+		final Random random = new Random();
+		for (int N = 1; N < 5000; N += 1 + N / 10) {
+			for (int iter = 0; iter < 10; ++iter) {
+				final int[] original;
+				switch (iter % 4) {
+					case 0: original = Inputs.randomRuns(N, 1 + random.nextInt(N), random); break;
+					case 1: original = Inputs.randomRuns(N, 1 + random.nextInt(50), random); break;
+					case 2:
+						original = new int[N];
+						Inputs.fillWithUpAndDownRuns(original, randomRunLengths(N, random), 1, random);
+						break;
+					default:
+						original = randomPermutation(N, random);
+						Arrays.sort(original);
+						if (random.nextBoolean()) MergesAndRuns.reverseRange(original, 0, N - 1);
+				}
+				final int[] clone = original.clone();
+				sort.sort(clone, 0, N - 1);
+				if (!isOneUpToN(clone)) {
+					System.err.println("ERROR!");
+					System.err.println("original input  = " + Arrays.toString(original));
+					System.err.println("'sorted' output = " + Arrays.toString(clone));
+					System.exit(1);
+				}
+			}
+		}
+	}
+
+	private static List<Integer> randomRunLengths(int N, Random random) {
+		List<Integer> runLengths = new ArrayList<>();
+		for (int remaining = N; remaining > 0; ) {
+			int l = Math.min(remaining, 1 + random.nextInt(1 + N / 3));
+			runLengths.add(l);
+			remaining -= l;
+		}
+		return runLengths;
+	}
+
+
 	public static void harnessUary(Sorter sort) {
 		System.setOut(new PrintStream(new OutputStream() {
 			@Override public void write(final int b) throws IOException { }
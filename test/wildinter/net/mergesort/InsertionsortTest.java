@@ -14,6 +14,8 @@ public class InsertionsortTest extends TestCase {
 				Insertionsort.insertionsort(A, left, right, 1));
 		harnessOnlySmall((A, left, right) ->
 				Insertionsort.insertionsortRight(A, left, right, 1));
+		harnessOnlySmall((A, left, right) ->
+				Insertionsort.insertionsortBranchless(A, left, right, 1));
 
 	}
 
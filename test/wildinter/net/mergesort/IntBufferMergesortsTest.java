@@ -0,0 +1,107 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+public class IntBufferMergesortsTest extends TestCase {
+
+	private static IntBuffer direct(int[] A, ByteOrder order) {
+		final IntBuffer buffer = ByteBuffer.allocateDirect(4 * A.length).order(order).asIntBuffer();
+		buffer.put(A);
+		buffer.position(7 % (A.length + 1)); // position is ignored
+		return buffer;
+	}
+
+	private static int[] toArray(IntBuffer buffer) {
+		final IntBuffer whole = buffer.duplicate();
+		whole.clear();
+		final int[] A = new int[whole.capacity()];
+		for (int i = 0; i < A.length; ++i) A[i] = whole.get(i);
+		return A;
+	}
+
+	public void testSortSubranges() throws Exception {
+		final Random random = new Random();
+		for (int iter = 0; iter < 300; ++iter) {
+			final int n = 1 + random.nextInt(iter % 2 == 0 ? 50 : 5000);
+			final int[] input = random.nextBoolean()
+					? Inputs.randomRuns(n, 1 + random.nextInt(n), random)
+					: Inputs.randomUaryArray(1 + random.nextInt(n), n, random);
+			final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+			final int[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			final ByteOrder order = random.nextBoolean() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+			IntBuffer A = direct(input, order);
+			IntBufferMergesorts.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, toArray(A)));
+			A = direct(input, order);
+			IntBufferMergesorts.powersort(A, left, right, 1, IntBufferMergesorts.allocateBuffer(n / 2));
+			assertTrue(Arrays.equals(expected, toArray(A)));
+			A = direct(input, order);
+			IntBufferMergesorts.peeksort(A, left, right, 1 + random.nextInt(12), IntBuffer.allocate(n / 2));
+			assertTrue(Arrays.equals(expected, toArray(A)));
+		}
+	}
+
+	public void testSortByteBuffer() throws Exception {
+		final Random random = new Random();
+		final int[] input = Inputs.randomPermutation(100000, random);
+		final ByteBuffer bytes = ByteBuffer.allocateDirect(4 * input.length).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.asIntBuffer().put(input);
+		bytes.position(12);
+		bytes.limit(4 * (input.length - 5));
+		IntBufferMergesorts.sort(bytes);
+		assertEquals(12, bytes.position());
+		final int[] expected = input.clone();
+		Arrays.sort(expected, 3, input.length - 5);
+		final ByteBuffer whole = bytes.duplicate().order(bytes.order());
+		whole.clear();
+		for (int i = 0; i < input.length; ++i) assertEquals(expected[i], whole.getInt(4 * i));
+	}
+
+	/**
+	 * A partially filled buffer: the elements between position and limit
+	 * are sorted, the ones outside are left untouched
+	 */
+	public void testOnlyRemainingElementsSorted() throws Exception {
+		final Random random = new Random();
+		for (int iter = 0; iter < 50; ++iter) {
+			final int filled = 2 + random.nextInt(2000), start = random.nextInt(10);
+			final int capacity = start + filled + 1 + random.nextInt(filled);
+			final int[] stale = Inputs.randomUaryArray(3, capacity, random);
+			final int[] input = Inputs.randomUaryArray(1 + random.nextInt(filled), filled, random);
+			final int[] expected = stale.clone();
+			System.arraycopy(input, 0, expected, start, filled);
+			Arrays.sort(expected, start, start + filled);
+			final int end = start + filled - 1, mid = start + filled / 2;
+			for (int variant = 0; variant < 8; ++variant) {
+				final IntBuffer A = variant % 2 == 0 ? IntBuffer.allocate(capacity)
+						: ByteBuffer.allocateDirect(4 * capacity).order(ByteOrder.nativeOrder()).asIntBuffer();
+				A.put(stale);
+				A.position(start);
+				A.put(input);
+				A.flip();
+				A.position(start);
+				final IntBuffer B = IntBufferMergesorts.allocateBuffer(filled);
+				B.limit(0);
+				switch (variant / 2) {
+					case 0: IntBufferMergesorts.sort(A); break;
+					case 1: IntBufferMergesorts.powersort(A, start, end, 8, B); break;
+					case 2: IntBufferMergesorts.peeksort(A, start, end, 8, B); break;
+					default:
+						IntBufferMergesorts.sort(A, start, mid - 1);
+						IntBufferMergesorts.sort(A, mid, end);
+						IntBufferMergesorts.mergeRuns(A, start, mid, end, B);
+				}
+				assertTrue("variant " + variant, Arrays.equals(expected, toArray(A)));
+				assertEquals(start, A.position());
+				assertEquals(start + filled, A.limit());
+			}
+		}
+	}
+}
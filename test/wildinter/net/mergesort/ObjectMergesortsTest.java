@@ -0,0 +1,137 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+public class ObjectMergesortsTest extends TestCase {
+
+	/** key with the original position, to check stability */
+	private static final class Item {
+		final int key, index;
+		Item(int key, int index) { this.key = key; this.index = index; }
+		@Override public String toString() { return key + "@" + index; }
+	}
+
+	private static final Comparator<Item> BY_KEY = Comparator.comparingInt(it -> it.key);
+
+	private static Item[] randomItems(int n, Random random) {
+		final int[] keys;
+		switch (random.nextInt(3)) {
+			case 0: keys = Inputs.randomUaryArray(1 + random.nextInt(10), n, random); break;
+			case 1: keys = Inputs.randomRuns(n, 1 + random.nextInt(n + 1), random); break;
+			default: keys = Inputs.randomPermutation(n, random);
+		}
+		final Item[] items = new Item[n];
+		for (int i = 0; i < n; ++i) items[i] = new Item(keys[i] / 3, i);
+		return items;
+	}
+
+	/** sorted by key, equal keys in original order */
+	private static void assertStablySorted(Item[] expected, Item[] actual) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; ++i)
+			assertSame(Arrays.toString(actual), expected[i], actual[i]);
+	}
+
+	public void testSortArrays() throws Exception {
+		final Random random = new Random();
+		for (int n = 0; n < 2000; n += 1 + n / 10) {
+			for (int iter = 0; iter < 3; ++iter) {
+				final Item[] input = randomItems(n, random);
+				final Item[] expected = input.clone();
+				Arrays.sort(expected, BY_KEY); // stable
+				Item[] A = input.clone();
+				ObjectMergesorts.sort(A, BY_KEY);
+				assertStablySorted(expected, A);
+				A = input.clone();
+				ObjectMergesorts.powersort(A, 0, n - 1, 1, BY_KEY, new Object[n / 2]);
+				assertStablySorted(expected, A);
+				A = input.clone();
+				ObjectMergesorts.peeksort(A, 0, n - 1, 1, BY_KEY, new Object[n / 2]);
+				assertStablySorted(expected, A);
+				A = input.clone();
+				ObjectMergesorts.peeksort(A, 0, n - 1, 10, BY_KEY.reversed(), new Object[n / 2]);
+				final Item[] expectedReversed = input.clone();
+				Arrays.sort(expectedReversed, BY_KEY.reversed());
+				assertStablySorted(expectedReversed, A);
+			}
+		}
+	}
+
+	public void testSortSubrange() throws Exception {
+		final Random random = new Random();
+		final Item[] input = randomItems(1000, random);
+		final Item[] expected = input.clone();
+		Arrays.sort(expected, 100, 901, BY_KEY);
+		final Item[] A = input.clone();
+		ObjectMergesorts.sort(A, 100, 900, BY_KEY);
+		assertStablySorted(expected, A);
+	}
+
+	public void testSortLists() throws Exception {
+		final Random random = new Random();
+		for (int n = 0; n < 2000; n += 1 + n / 5) {
+			final Item[] input = randomItems(n, random);
+			final Item[] expected = input.clone();
+			Arrays.sort(expected, BY_KEY);
+			final List<Item> arrayList = new ArrayList<>(Arrays.asList(input));
+			ObjectMergesorts.sort(arrayList, BY_KEY);
+			assertStablySorted(expected, arrayList.toArray(new Item[0]));
+			final List<Item> linkedList = new LinkedList<>(Arrays.asList(input));
+			ObjectMergesorts.peeksort(linkedList, 10, BY_KEY);
+			assertStablySorted(expected, linkedList.toArray(new Item[0]));
+		}
+	}
+
+	public void testNaturalOrder() throws Exception {
+		final Random random = new Random();
+		final Integer[] A = new Integer[5000];
+		for (int i = 0; i < A.length; ++i) A[i] = random.nextInt(100);
+		final Integer[] expected = A.clone();
+		Arrays.sort(expected);
+		ObjectMergesorts.sort(A);
+		assertTrue(Arrays.equals(expected, A));
+		final List<String> list = new ArrayList<>(Arrays.asList("pear", "apple", "fig", "apple"));
+		ObjectMergesorts.sort(list);
+		assertEquals(Arrays.asList("apple", "apple", "fig", "pear"), list);
+	}
+
+	public void testSortByIntKey() throws Exception {
+		final Random random = new Random();
+		for (int n = 0; n < 5000; n += 1 + n / 3) {
+			final Item[] input = randomItems(n, random);
+			for (int i = 0; i < n; i += 7) input[i] = new Item(i % 2 == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE, i);
+			final Item[] expected = input.clone();
+			Arrays.sort(expected, BY_KEY);
+			final Item[] A = input.clone();
+			ObjectMergesorts.sortByIntKey(A, it -> it.key);
+			assertStablySorted(expected, A);
+		}
+	}
+
+	public void testSortByLongKey() throws Exception {
+		final Random random = new Random();
+		final long[] scales = {1, 1L << 20, 1L << 40, Long.MAX_VALUE / 1000};
+		for (final long scale : scales) {
+			for (int n = 0; n < 5000; n += 1 + n / 3) {
+				final Item[] input = randomItems(n, random);
+				final Item[] expected = input.clone();
+				Arrays.sort(expected, Comparator.comparingLong(it -> it.key * scale));
+				final Item[] A = input.clone();
+				ObjectMergesorts.sortByLongKey(A, it -> it.key * scale);
+				assertStablySorted(expected, A);
+				final Item[] B = input.clone();
+				ObjectMergesorts.sortByLongKey(B, it -> -it.key * scale);
+				final Item[] expectedNegated = input.clone();
+				Arrays.sort(expectedNegated, Comparator.comparingLong(it -> -it.key * scale));
+				assertStablySorted(expectedNegated, B);
+			}
+		}
+	}
+}
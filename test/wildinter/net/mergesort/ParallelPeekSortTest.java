@@ -0,0 +1,13 @@
+package wildinter.net.mergesort;
+
+import static wildinter.net.mergesort.HarnessSort.harness;
+import static wildinter.net.mergesort.HarnessSort.harnessPresorted;
+
+public class ParallelPeekSortTest extends ForkJoinPoolTestCase {
+	public void testSort() throws Exception {
+		harness(new ParallelPeekSort(1, 16, pool));
+		harness(new ParallelPeekSort(10, 64, pool));
+		harness(new ParallelPeekSort(10));
+		harnessPresorted(new ParallelPeekSort(1, 16, pool));
+	}
+}
@@ -0,0 +1,17 @@
+package wildinter.net.mergesort;
+
+import static wildinter.net.mergesort.HarnessSort.harness;
+import static wildinter.net.mergesort.HarnessSort.harnessPresorted;
+
+public class ParallelPowerSortTest extends ForkJoinPoolTestCase {
+	public void testSort() throws Exception {
+		harness(new ParallelPowerSort(1, 16, pool));
+		harness(new ParallelPowerSort(16, 64, pool));
+		harness(new ParallelPowerSort(24));
+	}
+
+	public void testStitchRuns() throws Exception {
+		harnessPresorted(new ParallelPowerSort(1, 16, pool));
+		harnessPresorted(new ParallelPowerSort(16, 64, pool));
+	}
+}
@@ -0,0 +1,138 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class PayloadSortTest extends TestCase {
+
+	private static int[] randomKeys(int n, Random random) {
+		switch (random.nextInt(3)) {
+			case 0: return Inputs.randomUaryArray(1 + random.nextInt(10), n, random);
+			case 1: return Inputs.randomRuns(n, 1 + random.nextInt(n + 1), random);
+			default: return Inputs.randomPermutation(n, random);
+		}
+	}
+
+	private interface PayloadSorter {
+		void sort(int[] A, int[][] payloads, int left, int right, SortWorkspace workspace);
+	}
+
+	private static final PayloadSorter[] SORTERS = {
+			(A, P, l, r, ws) -> PowerSort.powersort(A, P, l, r, 1, ws),
+			(A, P, l, r, ws) -> PowerSort.powersort(A, P, l, r, 24, ws),
+			(A, P, l, r, ws) -> PeekSort.peeksort(A, P, l, r, 1, ws),
+			(A, P, l, r, ws) -> PeekSort.peeksort(A, P, l, r, 10, ws),
+	};
+
+	/**
+	 * Column 0 holds the original index, column 1 a value derived from it;
+	 * the keys must be sorted and the index column must be the stable
+	 * sorting permutation of the range.
+	 */
+	public void testPayloadsMoveWithKeys() throws Exception {
+		final Random random = new Random();
+		for (final PayloadSorter sorter : SORTERS) {
+			final SortWorkspace workspace = new SortWorkspace();
+			for (int iter = 0; iter < 300; ++iter) {
+				final int n = 1 + random.nextInt(iter % 2 == 0 ? 50 : 5000);
+				final int[] original = randomKeys(n, random), A = original.clone();
+				final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+				final int[] index = Argsort.identity(n), derived = new int[n];
+				for (int i = 0; i < n; ++i) derived[i] = ~i;
+				sorter.sort(A, new int[][] {index, derived}, left, right, workspace);
+				final int[] expected = original.clone();
+				Arrays.sort(expected, left, right + 1);
+				assertTrue(Arrays.equals(expected, A));
+				for (int i = 0; i < n; ++i) {
+					assertEquals(original[index[i]], A[i]);
+					assertEquals(~index[i], derived[i]);
+					if (i < left || i > right) assertEquals(i, index[i]);
+					else if (i > left && A[i-1] == A[i]) assertTrue(index[i-1] < index[i]);
+				}
+				assertTrue(workspace.bufferLength() <= 2500);
+			}
+		}
+	}
+
+	private interface LongPayloadSorter {
+		void sort(int[] A, int[][] P, long[][] Q, int left, int right, SortWorkspace workspace);
+	}
+
+	private static final LongPayloadSorter[] LONG_SORTERS = {
+			(A, P, Q, l, r, ws) -> PowerSort.powersort(A, Q, l, r, 1, ws),
+			(A, P, Q, l, r, ws) -> PeekSort.peeksort(A, Q, l, r, 10, ws),
+			(A, P, Q, l, r, ws) -> PowerSort.powersort(A, P, Q, l, r, 24, ws),
+			(A, P, Q, l, r, ws) -> PeekSort.peeksort(A, P, Q, l, r, l, r, ws, (r - l + 1) >> 1, 1),
+	};
+
+	/**
+	 * Like testPayloadsMoveWithKeys, with the original index in a long
+	 * column (and, for the last two sorters, which take both types, also
+	 * in an int column)
+	 */
+	public void testLongPayloadsMoveWithKeys() throws Exception {
+		final Random random = new Random();
+		for (int s = 0; s < LONG_SORTERS.length; ++s) {
+			final LongPayloadSorter sorter = LONG_SORTERS[s];
+			final boolean movesInts = s >= 2;
+			final SortWorkspace workspace = new SortWorkspace();
+			for (int iter = 0; iter < 300; ++iter) {
+				final int n = 1 + random.nextInt(iter % 2 == 0 ? 50 : 5000);
+				final int[] original = randomKeys(n, random), A = original.clone();
+				final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+				final int[] index = Argsort.identity(n);
+				final long[] longIndex = new long[n], derived = new long[n];
+				for (int i = 0; i < n; ++i) {
+					longIndex[i] = ((long) i << 32) | i;
+					derived[i] = ~longIndex[i];
+				}
+				sorter.sort(A, new int[][] {index}, new long[][] {longIndex, derived}, left, right, workspace);
+				final int[] expected = original.clone();
+				Arrays.sort(expected, left, right + 1);
+				assertTrue(Arrays.equals(expected, A));
+				for (int i = 0; i < n; ++i) {
+					final int j = (int) longIndex[i];
+					assertEquals((long) j << 32 | j, longIndex[i]);
+					assertEquals(~longIndex[i], derived[i]);
+					assertEquals(original[j], A[i]);
+					if (i < left || i > right) assertEquals(i, j);
+					else if (i > left && A[i-1] == A[i]) assertTrue((int) longIndex[i-1] < j);
+					assertEquals(movesInts ? j : i, index[i]);
+				}
+			}
+		}
+	}
+
+	public void testLongKeysWithIndexPayload() throws Exception {
+		final Random random = new Random();
+		for (int iter = 0; iter < 300; ++iter) {
+			final int n = 1 + random.nextInt(iter % 2 == 0 ? 50 : 5000);
+			final long[] original = new long[n];
+			for (int i = 0; i < n; ++i)
+				original[i] = iter % 3 == 0 ? random.nextLong() : (random.nextInt(5) - 2) * Long.MAX_VALUE / 3;
+			final long[] A = original.clone();
+			final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+			final int[] index = Argsort.identity(n);
+			LongMergesorts.powersort(A, index, left, right, 1 + random.nextInt(24), new long[n / 2], new int[n / 2]);
+			final long[] expected = original.clone();
+			Arrays.sort(expected, left, right + 1);
+			assertTrue(Arrays.equals(expected, A));
+			for (int i = 0; i < n; ++i) {
+				assertEquals(original[index[i]], A[i]);
+				if (i < left || i > right) assertEquals(i, index[i]);
+				else if (i > left && A[i-1] == A[i]) assertTrue(index[i-1] < index[i]);
+			}
+		}
+	}
+
+	public void testNoPayloads() throws Exception {
+		final Random random = new Random();
+		for (final PayloadSorter sorter : SORTERS) {
+			final int[] A = Inputs.randomPermutation(10000, random);
+			sorter.sort(A, new int[0][], 0, A.length - 1, new SortWorkspace());
+			assertTrue(Util.isOneUpToN(A));
+		}
+	}
+}
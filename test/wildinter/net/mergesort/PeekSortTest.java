@@ -1,16 +1,27 @@
 package wildinter.net.mergesort;
 
-import junit.framework.TestCase;
-
 import static wildinter.net.mergesort.HarnessSort.harness;
+import static wildinter.net.mergesort.HarnessSort.harnessPresorted;
 
 /**
  * @author Sebastian Wild (wild@uwaterloo.ca)
  */
-public class PeekSortTest extends TestCase {
+public class PeekSortTest extends ForkJoinPoolTestCase {
 	public void testPeeksort() throws Exception {
 		harness(new PeekSort(1, false));
 		harness(new PeekSort(1, true));
+		harness(new PeekSort(1, false, Merger.parallel(pool, 16)));
+		harness(new PeekSort(1, false, Merger.GALLOPING));
+		harnessPresorted(new PeekSort(1, false, Merger.GALLOPING));
+		harness(new PeekSort(1, false, Merger.COPY_HALF));
+		harness(new PeekSort(10, true, Merger.COPY_HALF));
+		harness(new PeekSort(1, false, Merger.IN_PLACE));
+		harness(new PeekSort(1, false, Merger.NETWORK));
+		harness(new PeekSort(10, false, Merger.BRANCHLESS));
+		harness(new PeekSort(1, false, Merger.BIDIRECTIONAL));
+		harness(new PeekSort(10, true, Merger.withBufferBudget(1000)));
+		harness(PeekSort.pingPong(1));
+		harnessPresorted(PeekSort.pingPong(10));
 	}
 
 }
@@ -1,17 +1,55 @@
 package wildinter.net.mergesort;
 
-import junit.framework.TestCase;
+import java.util.Arrays;
+import java.util.Random;
 
 import static wildinter.net.mergesort.HarnessSort.harness;
+import static wildinter.net.mergesort.HarnessSort.harnessPresorted;
 
 /**
  * @author Sebastian Wild (wild@uwaterloo.ca)
  */
-public class PowerSortTest extends TestCase {
+public class PowerSortTest extends ForkJoinPoolTestCase {
 	public void testPowersort() throws Exception {
 		harness(new PowerSort(true, false, 16));
 		harness(new PowerSort(true, true, 1));
 		harness(new PowerSort(false, false, 1));
+		harness(new PowerSort(true, false, 16, Merger.parallel(pool, 16)));
+		harness(new PowerSort(true, false, 16, Merger.GALLOPING));
+		harnessPresorted(new PowerSort(true, false, 1, Merger.GALLOPING));
+		harness(new PowerSort(true, false, 16, Merger.COPY_HALF));
+		harness(new PowerSort(false, false, 1, Merger.COPY_HALF));
+		harness(new PowerSort(true, false, 16, Merger.IN_PLACE));
+		harness(new PowerSort(true, false, 16, Merger.NETWORK));
+		harnessPresorted(new PowerSort(true, false, 1, Merger.NETWORK));
+		harness(new PowerSort(true, false, 16, Merger.BRANCHLESS));
+		harness(new PowerSort(false, false, 1, Merger.BRANCHLESS));
+		harness(new PowerSort(true, false, 16, Merger.BIDIRECTIONAL));
+		harnessPresorted(new PowerSort(true, false, 1, Merger.BIDIRECTIONAL));
+		harnessPresorted(new PowerSort(true, false, 1, Merger.IN_PLACE));
+		harness(new PowerSort(true, false, 16, Merger.withBufferBudget(1000)));
+		harness(PowerSort.pingPong(16));
+		harness(PowerSort.pingPong(1));
+		harnessPresorted(PowerSort.pingPong(1));
+	}
+
+	/** Merge kernels that compare by subtraction or min/max must not overflow */
+	public void testFullRangeValues() throws Exception {
+		final Random random = new Random();
+		final Merger[] mergers = {Merger.BRANCHLESS, Merger.BIDIRECTIONAL, Merger.NETWORK};
+		for (final Merger merger : mergers) {
+			for (int n = 1; n < 5000; n += 1 + n / 4) {
+				final int[] A = new int[n];
+				for (int i = 0; i < n; ++i) {
+					final int r = random.nextInt(8);
+					A[i] = r == 0 ? Integer.MIN_VALUE : r == 1 ? Integer.MAX_VALUE : random.nextInt();
+				}
+				final int[] expected = A.clone();
+				Arrays.sort(expected);
+				new PowerSort(true, false, 1, merger).sort(A, 0, n - 1);
+				assertTrue(merger + " n=" + n, Arrays.equals(expected, A));
+			}
+		}
 	}
 
 }
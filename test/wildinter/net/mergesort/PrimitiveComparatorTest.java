@@ -0,0 +1,140 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class PrimitiveComparatorTest extends TestCase {
+
+	private static final IntComparator[] INT_ORDERS = {
+			IntComparator.NATURAL, IntComparator.REVERSE,
+			IntComparator.UNSIGNED, IntComparator.UNSIGNED_REVERSE,
+			(a, b) -> Integer.compare(Math.floorMod(a, 10), Math.floorMod(b, 10)), // many ties
+			IntComparator.UNSIGNED.reversed().reversed(),
+			((IntComparator) Integer::compare).reversed(),
+	};
+
+	private static final LongComparator[] LONG_ORDERS = {
+			LongComparator.NATURAL, LongComparator.REVERSE,
+			LongComparator.UNSIGNED, LongComparator.UNSIGNED_REVERSE,
+			(a, b) -> Long.compare(Math.floorMod(a, 10), Math.floorMod(b, 10)), // many ties
+			((LongComparator) Long::compare).reversed(),
+	};
+
+	private static int[] randomInts(int n, Random random) {
+		final int[] A = new int[n];
+		final int u = random.nextBoolean() ? 1 + random.nextInt(n + 1) : Integer.MAX_VALUE;
+		for (int i = 0; i < n; ++i) A[i] = u == Integer.MAX_VALUE ? random.nextInt() : random.nextInt(u) - u / 2;
+		if (random.nextBoolean()) {
+			for (int i = 0; i < n; ) {
+				final int len = Math.min(n - i, 1 + random.nextInt(n / 4 + 1));
+				Arrays.sort(A, i, i + len);
+				i += len;
+			}
+		}
+		return A;
+	}
+
+	/** stable reference sort through boxing */
+	private static int[] expected(int[] input, int left, int right, IntComparator c) {
+		final Integer[] boxed = new Integer[right - left + 1];
+		for (int i = left; i <= right; ++i) boxed[i - left] = input[i];
+		Arrays.sort(boxed, (Comparator<Integer>) c::compare);
+		final int[] expected = input.clone();
+		for (int i = left; i <= right; ++i) expected[i] = boxed[i - left];
+		return expected;
+	}
+
+	public void testIntComparators() throws Exception {
+		final Random random = new Random();
+		final SortWorkspace workspace = new SortWorkspace();
+		for (final IntComparator c : INT_ORDERS) {
+			for (int iter = 0; iter < 200; ++iter) {
+				final int n = 1 + random.nextInt(iter % 2 == 0 ? 50 : 5000);
+				final int[] input = randomInts(n, random);
+				final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+				final int[] expected = expected(input, left, right, c);
+				int[] A = input.clone();
+				PowerSort.powersort(A, left, right, 1 + random.nextInt(24), c, workspace);
+				assertTrue(Arrays.equals(expected, A));
+				A = input.clone();
+				PeekSort.peeksort(A, left, right, 1 + random.nextInt(12), c, workspace);
+				assertTrue(Arrays.equals(expected, A));
+			}
+		}
+	}
+
+	public void testLongComparators() throws Exception {
+		final Random random = new Random();
+		for (final LongComparator c : LONG_ORDERS) {
+			for (int iter = 0; iter < 200; ++iter) {
+				final int n = 1 + random.nextInt(iter % 2 == 0 ? 50 : 5000);
+				final long[] input = new long[n];
+				final int[] ints = randomInts(n, random);
+				for (int i = 0; i < n; ++i) input[i] = random.nextBoolean() ? ints[i] : (long) ints[i] << 32 | i;
+				final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+				final Long[] boxed = new Long[right - left + 1];
+				for (int i = left; i <= right; ++i) boxed[i - left] = input[i];
+				Arrays.sort(boxed, (Comparator<Long>) c::compare);
+				final long[] expected = input.clone();
+				for (int i = left; i <= right; ++i) expected[i] = boxed[i - left];
+				long[] A = input.clone();
+				LongMergesorts.sort(A, left, right, c);
+				assertTrue(Arrays.equals(expected, A));
+				A = input.clone();
+				LongMergesorts.powersort(A, left, right, 1, c, new long[n]);
+				assertTrue(Arrays.equals(expected, A));
+				A = input.clone();
+				LongMergesorts.peeksort(A, left, right, 1 + random.nextInt(12), c, new long[n]);
+				assertTrue(Arrays.equals(expected, A));
+			}
+		}
+	}
+
+	/** the kernels' xor paths for the constants agree with calling the comparator */
+	public void testKernelsWithConstants() throws Exception {
+		final Random random = new Random();
+		for (int iter = 0; iter < 500; ++iter) {
+			final int n = 2 + random.nextInt(100), m = 1 + random.nextInt(n - 1);
+			final int[] input = randomInts(n, random);
+			final long[] longInput = new long[n];
+			for (int i = 0; i < n; ++i) longInput[i] = (long) input[i] * (1L << 33) + random.nextInt(3);
+			for (int k = 0; k < 4; ++k) {
+				final IntComparator c = INT_ORDERS[k], called = c::compare;
+				final int[] A = input.clone(), B = input.clone();
+				assertEquals(MergesAndRuns.extendAndReverseRunRight(B, 0, n - 1, called),
+						MergesAndRuns.extendAndReverseRunRight(A, 0, n - 1, c));
+				Insertionsort.insertionsort(A, 0, m - 1, 1, c);
+				Insertionsort.insertionsort(A, m, n - 1, 1, c);
+				Insertionsort.insertionsort(B, 0, m - 1, 1, called);
+				Insertionsort.insertionsort(B, m, n - 1, 1, called);
+				assertTrue(Arrays.equals(B, A));
+				MergesAndRuns.mergeRuns(A, 0, m, n - 1, c, new int[n]);
+				MergesAndRuns.mergeRuns(B, 0, m, n - 1, called, new int[n]);
+				assertTrue(Arrays.equals(B, A));
+
+				final LongComparator lc = LONG_ORDERS[k], lcalled = lc::compare;
+				final long[] L = longInput.clone(), M = longInput.clone();
+				assertEquals(LongMergesorts.extendAndReverseRunRight(M, 0, n - 1, lcalled),
+						LongMergesorts.extendAndReverseRunRight(L, 0, n - 1, lc));
+				LongMergesorts.insertionsort(L, 0, m - 1, 1, lc);
+				LongMergesorts.insertionsort(L, m, n - 1, 1, lc);
+				LongMergesorts.insertionsort(M, 0, m - 1, 1, lcalled);
+				LongMergesorts.insertionsort(M, m, n - 1, 1, lcalled);
+				assertTrue(Arrays.equals(M, L));
+				LongMergesorts.mergeRuns(L, 0, m, n - 1, lc, new long[n]);
+				LongMergesorts.mergeRuns(M, 0, m, n - 1, lcalled, new long[n]);
+				assertTrue(Arrays.equals(M, L));
+			}
+		}
+	}
+
+	public void testReversedConstants() throws Exception {
+		assertSame(IntComparator.REVERSE, IntComparator.NATURAL.reversed());
+		assertSame(IntComparator.UNSIGNED, IntComparator.UNSIGNED_REVERSE.reversed());
+		assertSame(LongComparator.NATURAL, LongComparator.REVERSE.reversed());
+		assertSame(LongComparator.UNSIGNED_REVERSE, LongComparator.UNSIGNED.reversed());
+	}
+}
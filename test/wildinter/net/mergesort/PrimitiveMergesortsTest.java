@@ -0,0 +1,169 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class PrimitiveMergesortsTest extends TestCase {
+
+	private final Random random = new Random();
+
+	/**
+	 * Random inputs with few distinct values, with runs, or
+	 * random values of the full range, in random subranges
+	 */
+	private long[][] inputs() {
+		final long[][] inputs = new long[300][];
+		for (int t = 0; t < inputs.length; ++t) {
+			final int n = t < 290 ? random.nextInt(2 * t + 2) : 5000 + random.nextInt(5000);
+			final long[] A = new long[n];
+			switch (t % 3) {
+				case 0:
+					final int u = 1 + random.nextInt(10);
+					for (int i = 0; i < n; ++i) A[i] = random.nextInt(u) - u / 2;
+					break;
+				case 1:
+					for (int i = 0; i < n; ++i) A[i] = random.nextInt(1000) - 500;
+					for (int i = 0; i < n; ) {
+						final int len = Math.min(n - i, 1 + random.nextInt(n / 4 + 1));
+						Arrays.sort(A, i, i + len);
+						if (random.nextBoolean()) reverse(A, i, i + len - 1);
+						i += len;
+					}
+					break;
+				default:
+					for (int i = 0; i < n; ++i) A[i] = random.nextLong();
+			}
+			inputs[t] = A;
+		}
+		return inputs;
+	}
+
+	private static void reverse(long[] A, int lo, int hi) {
+		while (lo < hi) { long t = A[lo]; A[lo++] = A[hi]; A[hi--] = t; }
+	}
+
+	public void testLong() throws Exception {
+		for (final long[] input : inputs()) {
+			final int n = input.length, left = n == 0 ? 0 : random.nextInt(n), right = n - 1;
+			final long[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			long[] A = input.clone();
+			LongMergesorts.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			LongMergesorts.powersort(A, left, right, 1, new long[n]);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			LongMergesorts.peeksort(A, left, right, 1, new long[n]);
+			assertTrue(Arrays.equals(expected, A));
+		}
+	}
+
+	/** replaces some values by NaN, -0.0 and 0.0 */
+	private double special(final long x) {
+		switch ((int) Math.floorMod(x, 17)) {
+			case 0: return Double.NaN;
+			case 1: return -0.0;
+			case 2: return 0.0;
+			case 3: return Double.NEGATIVE_INFINITY;
+			default: return x;
+		}
+	}
+
+	public void testDouble() throws Exception {
+		for (final long[] longs : inputs()) {
+			final int n = longs.length, left = n == 0 ? 0 : random.nextInt(n), right = n - 1;
+			final double[] input = new double[n];
+			for (int i = 0; i < n; ++i) input[i] = special(longs[i]);
+			final double[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			double[] A = input.clone();
+			DoubleMergesorts.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			DoubleMergesorts.powersort(A, left, right, 1, new double[n]);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			DoubleMergesorts.peeksort(A, left, right, 1, new double[n]);
+			assertTrue(Arrays.equals(expected, A));
+		}
+	}
+
+	public void testFloat() throws Exception {
+		for (final long[] longs : inputs()) {
+			final int n = longs.length, left = n == 0 ? 0 : random.nextInt(n), right = n - 1;
+			final float[] input = new float[n];
+			for (int i = 0; i < n; ++i) input[i] = (float) special(longs[i]);
+			final float[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			float[] A = input.clone();
+			FloatMergesorts.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			FloatMergesorts.powersort(A, left, right, 1, new float[n]);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			FloatMergesorts.peeksort(A, left, right, 10, new float[n]);
+			assertTrue(Arrays.equals(expected, A));
+		}
+	}
+
+	public void testShort() throws Exception {
+		for (final long[] longs : inputs()) {
+			final int n = longs.length, left = n == 0 ? 0 : random.nextInt(n), right = n - 1;
+			final short[] input = new short[n];
+			for (int i = 0; i < n; ++i) input[i] = (short) longs[i];
+			final short[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			short[] A = input.clone();
+			ShortMergesorts.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			ShortMergesorts.powersort(A, left, right, 1, new short[n]);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			ShortMergesorts.peeksort(A, left, right, 1, new short[n]);
+			assertTrue(Arrays.equals(expected, A));
+		}
+	}
+
+	public void testChar() throws Exception {
+		for (final long[] longs : inputs()) {
+			final int n = longs.length, left = n == 0 ? 0 : random.nextInt(n), right = n - 1;
+			final char[] input = new char[n];
+			for (int i = 0; i < n; ++i) input[i] = (char) longs[i];
+			final char[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			char[] A = input.clone();
+			CharMergesorts.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			CharMergesorts.powersort(A, left, right, 1, new char[n]);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			CharMergesorts.peeksort(A, left, right, 1, new char[n]);
+			assertTrue(Arrays.equals(expected, A));
+		}
+	}
+
+	public void testByte() throws Exception {
+		for (final long[] longs : inputs()) {
+			final int n = longs.length, left = n == 0 ? 0 : random.nextInt(n), right = n - 1;
+			final byte[] input = new byte[n];
+			for (int i = 0; i < n; ++i) input[i] = (byte) longs[i];
+			final byte[] expected = input.clone();
+			Arrays.sort(expected, left, right + 1);
+			byte[] A = input.clone();
+			ByteMergesorts.sort(A, left, right);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			ByteMergesorts.powersort(A, left, right, 1, new byte[n]);
+			assertTrue(Arrays.equals(expected, A));
+			A = input.clone();
+			ByteMergesorts.peeksort(A, left, right, 1, new byte[n]);
+			assertTrue(Arrays.equals(expected, A));
+		}
+	}
+}
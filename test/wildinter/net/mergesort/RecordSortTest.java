@@ -0,0 +1,131 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class RecordSortTest extends TestCase {
+
+	/**
+	 * Fills n records with random keys (few distinct values, or runs)
+	 * and the record index at offset indexOffset; returns the keys as
+	 * comparable longs.
+	 */
+	private static long[] fill(ByteBuffer records, int n, int size, int keyOffset, int keyWidth, int indexOffset,
+	                           boolean signed, Random random) {
+		final long[] keys = new long[n];
+		final boolean fewValues = random.nextBoolean();
+		for (int i = 0; i < n; ++i) {
+			long k = fewValues ? random.nextInt(7) - 3 : random.nextLong();
+			if (!fewValues && i > 0 && random.nextInt(10) != 0) k = keys[i-1] + random.nextInt(3); // runs
+			final int pos = i * size + keyOffset;
+			switch (keyWidth) {
+				case 1: records.put(pos, (byte) k); keys[i] = signed ? (byte) k : k & 0xFF; break;
+				case 2: records.putShort(pos, (short) k); keys[i] = signed ? (short) k : k & 0xFFFF; break;
+				case 4: records.putInt(pos, (int) k); keys[i] = signed ? (int) k : k & 0xFFFFFFFFL; break;
+				default: records.putLong(pos, k); keys[i] = signed ? k : k ^ Long.MIN_VALUE;
+			}
+			records.putInt(i * size + indexOffset, i);
+		}
+		return keys;
+	}
+
+	private void check(int size, int keyOffset, int keyWidth, int indexOffset, Random random) {
+		for (final boolean signed : new boolean[] {true, false}) {
+			final RecordSort sorter = new RecordSort(size, keyOffset, keyWidth, signed);
+			for (int n = 0; n < 3000; n += 1 + n / 2) {
+				final ByteOrder order = random.nextBoolean() ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+				final ByteBuffer records = random.nextBoolean()
+						? ByteBuffer.allocateDirect(n * size + random.nextInt(size)).order(order)
+						: ByteBuffer.allocate(n * size).order(order);
+				final long[] keys = fill(records, n, size, keyOffset, keyWidth, indexOffset, signed, random);
+				final Integer[] expected = new Integer[n];
+				for (int i = 0; i < n; ++i) expected[i] = i;
+				Arrays.sort(expected, Comparator.comparingLong(i -> keys[i])); // stable
+				sorter.sort(records);
+				for (int i = 0; i < n; ++i)
+					assertEquals(sorter + " n=" + n, (int) expected[i], records.getInt(i * size + indexOffset));
+			}
+		}
+	}
+
+	public void testLongKeyIn32ByteRecords() throws Exception {
+		check(32, 8, 8, 20, new Random());
+	}
+
+	public void testNarrowKeysInOddSizedRecords() throws Exception {
+		final Random random = new Random();
+		check(13, 1, 2, 5, random);
+		check(7, 6, 1, 0, random);
+		check(9, 5, 4, 0, random);
+	}
+
+	public void testSubrange() throws Exception {
+		final Random random = new Random();
+		final RecordSort sorter = new RecordSort(16, 0, 4, true);
+		final ByteBuffer records = ByteBuffer.allocate(16 * 1000);
+		final long[] keys = fill(records, 1000, 16, 0, 4, 8, true, random);
+		sorter.sort(records, 100, 899, sorter.allocateBuffer(400));
+		for (int i = 0; i < 1000; ++i) {
+			final int index = records.getInt(16 * i + 8);
+			if (i < 100 || i > 899) assertEquals(i, index);
+			else if (i > 100) assertTrue(keys[records.getInt(16 * (i-1) + 8)] <= keys[index]);
+		}
+	}
+
+	/**
+	 * A partially filled buffer: the records between position and limit
+	 * are sorted, the bytes outside are left untouched
+	 */
+	public void testOnlyRemainingRecordsSorted() throws Exception {
+		final Random random = new Random();
+		final RecordSort sorter = new RecordSort(12, 4, 8, true);
+		for (final boolean direct : new boolean[] {true, false}) {
+			final int n = 500, first = 7, last = 399;
+			final ByteBuffer records = (direct ? ByteBuffer.allocateDirect(12 * n) : ByteBuffer.allocate(12 * n))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			final long[] keys = fill(records, n, 12, 4, 8, 0, true, random);
+			final byte[] before = new byte[12 * n];
+			for (int b = 0; b < before.length; ++b) before[b] = records.get(b);
+			records.limit(12 * (last + 1) + 5); // incomplete last record is not sorted
+			records.position(12 * first);
+			final ByteBuffer buffer = sorter.allocateBuffer(n / 2);
+			buffer.limit(0);
+			if (direct) sorter.sort(records);
+			else sorter.sort(records, first, last, buffer);
+			assertEquals(12 * (last + 1) + 5, records.limit());
+			assertEquals(12 * first, records.position());
+			final ByteBuffer whole = records.duplicate().order(records.order());
+			whole.clear();
+			for (int b = 0; b < before.length; ++b)
+				if (b < 12 * first || b >= 12 * (last + 1)) assertEquals(before[b], whole.get(b));
+			final boolean[] seen = new boolean[n];
+			for (int i = first; i <= last; ++i) {
+				final int index = whole.getInt(12 * i);
+				assertTrue(index >= first && index <= last && !seen[index]);
+				seen[index] = true;
+				if (i > first) {
+					final int prev = whole.getInt(12 * (i-1));
+					assertTrue(keys[prev] < keys[index] || keys[prev] == keys[index] && prev < index);
+				}
+			}
+		}
+	}
+
+	public void testInvalidKey() throws Exception {
+		try {
+			new RecordSort(8, 6, 4, true);
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			new RecordSort(8, 0, 3, true);
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package wildinter.net.mergesort;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class SortWorkspaceTest extends ForkJoinPoolTestCase {
+
+	private Sorter[] sorters;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		sorters = new Sorter[] {
+				new PowerSort(true, false, 16),
+				new PowerSort(true, true, 1),
+				new PowerSort(false, false, 1),
+				new PowerSort(true, false, 1, Merger.GALLOPING),
+				new PowerSort(true, false, 16, Merger.COPY_HALF),
+				new PeekSort(10, false, Merger.COPY_HALF),
+				new PowerSort(true, false, 16, Merger.IN_PLACE),
+				new PowerSort(true, false, 16, Merger.NETWORK),
+				new BottomUpMergesort(24, false, Merger.NETWORK),
+				new PeekSort(10, false),
+				new PeekSort(1, true),
+				new TopDownMergesort(24, true),
+				new BottomUpMergesort(24, false),
+				new BottomUpMergesort(1, true),
+				PowerSort.pingPong(16),
+				PeekSort.pingPong(10),
+				BottomUpMergesort.pingPong(24),
+				new ParallelPowerSort(16, 64, pool),
+				new ParallelPeekSort(10, 64, pool),
+				Timsort.INSTANCE,
+				TimsortTrot.INSTANCE,
+				TimsortStrippedDown.INSTANCE,
+		};
+	}
+
+	/** One workspace reused for subranges of growing and shrinking size */
+	public void testReuseWorkspace() throws Exception {
+		final Random random = new Random();
+		for (final Sorter sorter : sorters) {
+			final SortWorkspace workspace = new SortWorkspace();
+			for (int iter = 0; iter < 200; ++iter) {
+				final int n = 1 + random.nextInt(iter % 2 == 0 ? 50 : 3000);
+				final int[] A = Inputs.randomUaryArray(1 + random.nextInt(n), n, random);
+				final int left = random.nextInt(n), right = left + random.nextInt(n - left);
+				final int[] expected = A.clone();
+				Arrays.sort(expected, left, right + 1);
+				sorter.sort(A, left, right, workspace);
+				if (!Arrays.equals(expected, A))
+					fail(sorter + " failed on range " + left + ".." + right);
+			}
+		}
+	}
+
+	/** In steady state, sorting does not grow the workspace any further */
+	public void testNoGrowthInSteadyState() throws Exception {
+		final Random random = new Random();
+		for (final Sorter sorter : sorters) {
+			final SortWorkspace workspace = new SortWorkspace();
+			sorter.sort(Inputs.randomPermutation(10000, random), 0, 9999, workspace);
+			final int[] buffer = workspace.buffer(0);
+			final int[] starts = workspace.starts(0), ends = workspace.ends(0);
+			for (int iter = 0; iter < 10; ++iter) {
+				final int[] A = Inputs.randomPermutation(10000, random);
+				sorter.sort(A, 0, 9999, workspace);
+				assertTrue(Util.isOneUpToN(A));
+			}
+			assertSame(sorter.toString(), buffer, workspace.buffer(0));
+			assertSame(sorter.toString(), starts, workspace.starts(0));
+			assertSame(sorter.toString(), ends, workspace.ends(0));
+		}
+	}
+
+	/** Merging with COPY_HALF never needs more than n/2 buffer */
+	public void testHalfBuffer() throws Exception {
+		final Random random = new Random();
+		final Sorter[] sorters = {
+				new PowerSort(true, false, 16, Merger.COPY_HALF),
+				new PowerSort(true, true, 1, Merger.COPY_HALF),
+				new PeekSort(10, false, Merger.COPY_HALF),
+				new PeekSort(10, true, Merger.COPY_HALF),
+		};
+		for (final Sorter sorter : sorters) {
+			final SortWorkspace workspace = new SortWorkspace();
+			for (int n = 2; n < 100000; n = 3 * n + 1) {
+				final int[] A = Inputs.randomPermutation(n, random);
+				sorter.sort(A, 0, n - 1, workspace);
+				assertTrue(Util.isOneUpToN(A));
+				assertTrue(sorter + " n=" + n, workspace.bufferLength() <= n / 2);
+			}
+			// sorted input needs no buffer at all
+			final SortWorkspace unused = new SortWorkspace();
+			final int[] sorted = Inputs.randomPermutation(1000, random);
+			Arrays.sort(sorted);
+			sorter.sort(sorted, 0, 999, unused);
+			assertEquals(0, unused.bufferLength());
+		}
+	}
+
+	/** In-place merging never uses a buffer, a budget caps its size */
+	public void testBufferBudget() throws Exception {
+		final Random random = new Random();
+		final Sorter[] sorters = {
+				new PowerSort(true, false, 16, Merger.IN_PLACE),
+				new PeekSort(10, false, Merger.IN_PLACE),
+				new PowerSort(true, false, 16, Merger.withBufferBudget(4000)),
+				new PeekSort(10, false, Merger.withBufferBudget(4000)),
+		};
+		for (final Sorter sorter : sorters) {
+			final SortWorkspace workspace = new SortWorkspace();
+			final int[] A = Inputs.randomPermutation(100000, random);
+			sorter.sort(A, 0, A.length - 1, workspace);
+			assertTrue(Util.isOneUpToN(A));
+			assertTrue(sorter.toString(), workspace.bufferLength() <= 1000);
+		}
+	}
+
+	public void testGrowth() throws Exception {
+		final SortWorkspace workspace = new SortWorkspace(10);
+		assertEquals(10, workspace.bufferLength());
+		assertEquals(10, workspace.buffer(5).length);
+		assertEquals(15, workspace.buffer(11).length);
+		assertEquals(100, workspace.buffer(100).length);
+		assertEquals(120, workspace.buffer(101, 120).length);
+		assertEquals(130, workspace.buffer(130, 120).length);
+		assertEquals(7, workspace.starts(7).length);
+		assertEquals(0, workspace.ends(0).length);
+	}
+}
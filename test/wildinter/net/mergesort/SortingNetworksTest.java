@@ -0,0 +1,64 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static wildinter.net.mergesort.HarnessSort.harness;
+
+public class SortingNetworksTest extends TestCase {
+
+	/** By the 0-1 principle, sorting all 0-1 inputs proves a network correct */
+	public void testAllZeroOneInputs() throws Exception {
+		for (int n = 0; n <= 16; ++n) {
+			final int[] A = new int[n + 2];
+			for (int bits = 0; bits < (1 << n); ++bits) {
+				for (int i = 0; i < n; ++i) A[i + 1] = (bits >>> i) & 1;
+				A[0] = -1; A[n + 1] = 2;
+				SortingNetworks.sort(A, 1, n);
+				for (int i = 0; i <= n; ++i)
+					if (A[i] > A[i + 1]) fail("n=" + n + " input " + Integer.toBinaryString(bits));
+			}
+		}
+	}
+
+	public void testPresortedPrefix() throws Exception {
+		final Random random = new Random();
+		for (int n = 1; n <= SortingNetworks.MAX_SIZE; ++n) {
+			for (int nPresorted = 0; nPresorted <= n; ++nPresorted) {
+				for (int iter = 0; iter < 200; ++iter) {
+					final int[] A = new int[n + 10];
+					for (int i = 0; i < A.length; ++i) A[i] = random.nextInt(iter % 2 == 0 ? 4 : 1000) - 500;
+					if (iter % 5 == 0) A[5 + random.nextInt(n)] = random.nextBoolean() ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+					Arrays.sort(A, 5, 5 + nPresorted);
+					final int[] expected = A.clone();
+					Arrays.sort(expected, 5, 5 + n);
+					SortingNetworks.sort(A, 5, 4 + n, nPresorted);
+					assertTrue("n=" + n + " nPresorted=" + nPresorted, Arrays.equals(expected, A));
+				}
+			}
+		}
+	}
+
+	public void testSizes() throws Exception {
+		final int[] optimal = {0, 0, 1, 3, 5, 9, 12, 16, 19};
+		for (int n = 0; n < optimal.length; ++n)
+			assertEquals(optimal[n], SortingNetworks.size(n));
+		try {
+			SortingNetworks.sort(new int[40], 0, 32);
+			fail();
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	public void testAsBaseCase() throws Exception {
+		harness(new PowerSort(true, false, 24, Merger.BITONIC, BaseCase.NETWORK));
+		harness(new PowerSort(true, false, 40, Merger.COPY_HALF, BaseCase.NETWORK));
+		harness(new PeekSort(32, false, Merger.BITONIC, BaseCase.NETWORK));
+		harness(new PeekSort(16, true, Merger.BITONIC, BaseCase.NETWORK));
+		harness(new TopDownMergesort(24, true, Merger.BITONIC, BaseCase.NETWORK));
+		harness(new BottomUpMergesort(16, false, Merger.BITONIC, BaseCase.NETWORK));
+		harness(new PowerSort(true, false, 24, Merger.BITONIC, BaseCase.BRANCHLESS_INSERTIONSORT));
+	}
+}
@@ -0,0 +1,81 @@
+package wildinter.net.mergesort;
+
+import junit.framework.TestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+public class StringMergesortsTest extends TestCase {
+
+	private static final String[] PREFIXES = {
+			"", "a", "http://example.com/", "http://example.com/path/to/", "http://example.org/",
+			"/usr/lib/", "/usr/lib/jvm/", "äö", "😀x", "a\u0000",
+	};
+
+	/** strings with long shared prefixes, short strings, duplicates and runs */
+	private static String[] randomStrings(int n, Random random) {
+		final String[] A = new String[n];
+		for (int i = 0; i < n; ++i) {
+			final StringBuilder sb = new StringBuilder(PREFIXES[random.nextInt(PREFIXES.length)]);
+			final int len = random.nextInt(6);
+			for (int k = 0; k < len; ++k) sb.append("ab\u0000ÿ中".charAt(random.nextInt(5)));
+			A[i] = sb.toString(); // distinct objects for equal strings
+		}
+		if (random.nextBoolean()) {
+			for (int i = 0; i < n; ) {
+				final int len = Math.min(n - i, 1 + random.nextInt(n / 4 + 1));
+				Arrays.sort(A, i, i + len, random.nextBoolean() ? Comparator.naturalOrder() : Comparator.reverseOrder());
+				i += len;
+			}
+		}
+		return A;
+	}
+
+	private static final Comparator<byte[]> UNSIGNED_LEX = (a, b) -> {
+		for (int k = 0; k < Math.min(a.length, b.length); ++k)
+			if (a[k] != b[k]) return (a[k] & 0xFF) - (b[k] & 0xFF);
+		return a.length - b.length;
+	};
+
+	public void testSortStrings() throws Exception {
+		final Random random = new Random();
+		for (int n = 0; n < 20000; n += 1 + n / 3) {
+			final String[] input = randomStrings(n, random);
+			final String[] expected = input.clone();
+			Arrays.sort(expected); // stable
+			for (final int minRunLen : new int[] {1, 16}) {
+				final String[] A = input.clone();
+				StringMergesorts.powersort(A, 0, n - 1, minRunLen);
+				for (int i = 0; i < n; ++i) assertSame(expected[i], A[i]);
+			}
+		}
+	}
+
+	public void testSortBytes() throws Exception {
+		final Random random = new Random();
+		for (int n = 0; n < 20000; n += 1 + n / 3) {
+			final String[] strings = randomStrings(n, random);
+			final byte[][] input = new byte[n][];
+			for (int i = 0; i < n; ++i) input[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+			final byte[][] expected = input.clone();
+			Arrays.sort(expected, UNSIGNED_LEX);
+			for (final int minRunLen : new int[] {1, 16}) {
+				final byte[][] A = input.clone();
+				StringMergesorts.powersort(A, 0, n - 1, minRunLen);
+				for (int i = 0; i < n; ++i) assertSame(expected[i], A[i]);
+			}
+		}
+	}
+
+	public void testSubrange() throws Exception {
+		final Random random = new Random();
+		final String[] input = randomStrings(1000, random);
+		final String[] expected = input.clone();
+		Arrays.sort(expected, 100, 901);
+		final String[] A = input.clone();
+		StringMergesorts.sort(A, 100, 900);
+		for (int i = 0; i < A.length; ++i) assertSame(expected[i], A[i]);
+	}
+}
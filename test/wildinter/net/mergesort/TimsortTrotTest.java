@@ -9,10 +9,8 @@ import static wildinter.net.mergesort.HarnessSort.harness;
  */
 public class TimsortTrotTest extends TestCase {
 	public void testSort() throws Exception {
-//		TimsortTrot.USE_BINARY_INSERTIONSORT = true;
 //		harness(TimsortTrot.INSTANCE);
-		TimsortTrot.USE_BINARY_INSERTIONSORT = false;
-		harness(TimsortTrot.INSTANCE);
+		harness(TimsortTrot.STRAIGHT_INSERTIONSORT);
 	}
 
 }
@@ -1,15 +1,18 @@
 package wildinter.net.mergesort;
 
-import junit.framework.TestCase;
-
 import static wildinter.net.mergesort.HarnessSort.harness;
 
 /**
  * @author Sebastian Wild (wild@uwaterloo.ca)
  */
-public class TopDownMergesortTest extends TestCase {
+public class TopDownMergesortTest extends ForkJoinPoolTestCase {
 	public void testSort() throws Exception {
 		harness(new TopDownMergesort(1, true));
 		harness(new TopDownMergesort(1, false));
+		harness(new TopDownMergesort(1, false, Merger.parallel(pool, 16)));
+		harness(new TopDownMergesort(1, false, Merger.GALLOPING));
+		harness(new TopDownMergesort(1, false, Merger.NETWORK));
+		harness(new TopDownMergesort(1, true, Merger.BRANCHLESS));
+		harness(new TopDownMergesort(1, false, Merger.BIDIRECTIONAL));
 	}
 }